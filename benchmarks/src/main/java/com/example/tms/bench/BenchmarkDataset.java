@@ -0,0 +1,191 @@
+package com.example.tms.bench;
+
+import com.example.tms.Database;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates (once) and opens a seeded SQLite database of a given size.
+ *
+ * Must be called before anything touches {@link Database}, because the connection URL is read
+ * when that class initializes. Each JMH fork is a fresh JVM, so every @Param value gets its own file.
+ * Generated files are reused across runs: delete target/bench-*.db to regenerate.
+ */
+public final class BenchmarkDataset {
+
+    public static final String PASSWORD = "bench";
+    private static final int BCRYPT_COST = 4;
+
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // roughly matches what we see on real boards
+    private static final int TASKS_PER_USER = 50;
+    private static final int MAX_EXTRA_ASSIGNEES = 2;
+    private static final int COMMENTS_PER_TASK = 2;
+    private static final int NOTIFICATIONS_PER_TASK = 3;
+
+    public final int taskCount;
+    public final int userCount;
+    // a Staff user with an average share of tasks
+    public final int staffUserId;
+    public final String staffUsername;
+    public final String managerUsername;
+
+    private BenchmarkDataset(int taskCount, int userCount) {
+        this.taskCount = taskCount;
+        this.userCount = userCount;
+        // user 1 is the manager, everyone else is Staff
+        this.staffUserId = 2;
+        this.staffUsername = "user2";
+        this.managerUsername = "user1";
+    }
+
+    public static synchronized BenchmarkDataset open(int taskCount) throws SQLException {
+        File dir = new File(System.getProperty("bench.dir", "target"));
+        dir.mkdirs();
+        File db = new File(dir, "bench-" + taskCount + ".db");
+
+        System.setProperty("tms.db.url", "jdbc:sqlite:" + db.getPath());
+        System.setProperty("tms.notifications.journal", new File(dir, "bench-" + taskCount + ".journal").getPath());
+        // same cost as the seeded hashes, so logins don't re-hash them behind the benchmark's back
+        System.setProperty("tms.auth.bcryptCost", String.valueOf(BCRYPT_COST));
+        // the seeded daily/weekly/monthly tasks must not grow new occurrences while a benchmark runs
+        System.setProperty("tms.recurring.enabled", "false");
+        // nor send reminders for the seeded due dates, which would add notification writes to the runs
+        System.setProperty("tms.reminders.enabled", "false");
+
+        BenchmarkDataset ds = new BenchmarkDataset(taskCount, Math.max(20, taskCount / TASKS_PER_USER));
+        if (countTasks() != taskCount) {
+            ds.generate();
+        }
+        return ds;
+    }
+
+    private static int countTasks() throws SQLException {
+        try (Connection conn = Database.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM tasks")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void generate() throws SQLException {
+        Random random = new Random(42);
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(BCRYPT_COST));
+        String[] categories = {"one-time", "daily", "weekly", "monthly"};
+        String[] statuses = {"TODO", "IN_PROGRESS", "DONE"};
+
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (String table : new String[]{"task_assignees", "comments", "notifications", "tasks", "users"}) {
+                    stmt.executeUpdate("DELETE FROM " + table);
+                }
+                stmt.executeUpdate("DELETE FROM sqlite_sequence");
+            }
+
+            try (PreparedStatement users = conn.prepareStatement(
+                    "INSERT INTO users (id, username, email, password_hash, role) VALUES (?, ?, ?, ?, ?)")) {
+                for (int u = 1; u <= userCount; u++) {
+                    users.setInt(1, u);
+                    users.setString(2, "user" + u);
+                    users.setString(3, "user" + u + "@example.com");
+                    users.setString(4, hash);
+                    users.setString(5, u == 1 ? "Manager" : "Staff");
+                    users.addBatch();
+                }
+                users.executeBatch();
+            }
+
+            try (PreparedStatement tasks = conn.prepareStatement("""
+                    INSERT INTO tasks (id, title, description, status, category, priority, created_at,
+                                       due_at, created_by_user_id, assignee_id, pending_review)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1, ?, ?)
+                    """);
+                 PreparedStatement links = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO task_assignees (task_id, user_id) VALUES (?, ?)");
+                 PreparedStatement comments = conn.prepareStatement(
+                    "INSERT INTO comments (task_id, user_id, text, created_at) VALUES (?, ?, ?, ?)");
+                 PreparedStatement notifications = conn.prepareStatement(
+                    "INSERT INTO notifications (user_id, task_id, type, message, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+
+                for (int t = 1; t <= taskCount; t++) {
+                    int primary = 2 + random.nextInt(userCount - 1);
+                    String createdAt = timestamp(t);
+
+                    tasks.setInt(1, t);
+                    tasks.setString(2, "Task " + t);
+                    tasks.setString(3, "Generated task number " + t + " for benchmarking");
+                    tasks.setString(4, statuses[random.nextInt(statuses.length)]);
+                    tasks.setString(5, categories[random.nextInt(categories.length)]);
+                    tasks.setInt(6, 1 + random.nextInt(5));
+                    tasks.setString(7, createdAt);
+                    tasks.setString(8, "2026-" + String.format("%02d-%02dT09:00", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+                    tasks.setInt(9, primary);
+                    tasks.setInt(10, random.nextInt(10) == 0 ? 1 : 0);
+                    tasks.addBatch();
+
+                    links.setInt(1, t);
+                    links.setInt(2, primary);
+                    links.addBatch();
+                    for (int extra = random.nextInt(MAX_EXTRA_ASSIGNEES + 1); extra > 0; extra--) {
+                        links.setInt(1, t);
+                        links.setInt(2, 2 + random.nextInt(userCount - 1));
+                        links.addBatch();
+                    }
+
+                    for (int c = 0; c < COMMENTS_PER_TASK; c++) {
+                        comments.setInt(1, t);
+                        comments.setInt(2, primary);
+                        comments.setString(3, "Comment " + c + " on task " + t);
+                        comments.setString(4, createdAt);
+                        comments.addBatch();
+                    }
+
+                    for (int n = 0; n < NOTIFICATIONS_PER_TASK; n++) {
+                        notifications.setInt(1, primary);
+                        notifications.setInt(2, t);
+                        notifications.setString(3, "comment");
+                        notifications.setString(4, "New comment on task: Task " + t);
+                        notifications.setInt(5, random.nextInt(2));
+                        notifications.setString(6, createdAt);
+                        notifications.addBatch();
+                    }
+
+                    if (t % 1000 == 0) {
+                        tasks.executeBatch();
+                        links.executeBatch();
+                        comments.executeBatch();
+                        notifications.executeBatch();
+                    }
+                }
+                tasks.executeBatch();
+                links.executeBatch();
+                comments.executeBatch();
+                notifications.executeBatch();
+            }
+
+            conn.commit();
+            conn.setAutoCommit(true);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+        }
+    }
+
+    // one task per minute going back from a fixed point, so created_at is unique and stable
+    private static String timestamp(int t) {
+        long epoch = 1_760_000_000L - (long) t * 60;
+        return LocalDateTime.ofEpochSecond(epoch, 0, ZoneOffset.UTC).format(SQLITE_TIMESTAMP);
+    }
+}
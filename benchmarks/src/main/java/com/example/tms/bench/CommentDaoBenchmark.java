@@ -0,0 +1,45 @@
+package com.example.tms.bench;
+
+import com.example.tms.dao.CommentDAO;
+import com.example.tms.model.Comment;
+import com.example.tms.model.CommentSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentDaoBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tasks;
+
+    private BenchmarkDataset dataset;
+    private CommentDAO commentDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = BenchmarkDataset.open(tasks);
+        commentDAO = new CommentDAO();
+    }
+
+    @Benchmark
+    public List<Comment> getByTask() throws Exception {
+        return commentDAO.getByTask(tasks / 2);
+    }
+
+    @Benchmark
+    public List<CommentSummary> summarizeAll() throws Exception {
+        return commentDAO.summarizeAll();
+    }
+
+    @Benchmark
+    public List<CommentSummary> summarizeForAssignee() throws Exception {
+        return commentDAO.summarizeForAssignee(dataset.staffUserId);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.tms.bench;
+
+import com.example.tms.dao.NotificationDAO;
+import com.example.tms.model.Notification;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationDaoBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tasks;
+
+    private BenchmarkDataset dataset;
+    private NotificationDAO notificationDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = BenchmarkDataset.open(tasks);
+        notificationDAO = new NotificationDAO();
+    }
+
+    @Benchmark
+    public List<Notification> findByUserId() throws Exception {
+        return notificationDAO.findByUserId(dataset.staffUserId);
+    }
+
+    @Benchmark
+    public void streamByUserId(Blackhole bh) throws Exception {
+        notificationDAO.streamByUserId(dataset.staffUserId, bh::consume);
+    }
+}
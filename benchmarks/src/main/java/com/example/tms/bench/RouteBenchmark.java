@@ -0,0 +1,101 @@
+package com.example.tms.bench;
+
+import com.example.tms.Main;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end request cost through the real Spark server on localhost:4567
+ * (routing, session lookup, DAO, serialization and HTTP).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteBenchmark {
+
+    private static final String BASE = "http://localhost:4567";
+
+    @Param({"1000", "10000", "100000"})
+    public int tasks;
+
+    // "virtual" needs a Java 21+ JVM; compare with -p serverThreads=platform,virtual -t 256
+    @Param({"platform"})
+    public String serverThreads;
+
+    private HttpClient manager;
+    private HttpClient staff;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDataset dataset = BenchmarkDataset.open(tasks);
+        System.setProperty("tms.server.virtualThreads", String.valueOf("virtual".equals(serverThreads)));
+        Main.main(new String[0]);
+        spark.Spark.awaitInitialization();
+
+        manager = login(dataset.managerUsername);
+        staff = login(dataset.staffUsername);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        spark.Spark.stop();
+        spark.Spark.awaitStop();
+    }
+
+    private static HttpClient login(String username) throws Exception {
+        HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + BenchmarkDataset.PASSWORD + "\"}";
+        HttpResponse<String> res = client.send(
+            HttpRequest.newBuilder(URI.create(BASE + "/api/auth/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (res.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + username + ": " + res.body());
+        }
+        return client;
+    }
+
+    private static byte[] get(HttpClient client, String path) throws Exception {
+        HttpResponse<byte[]> res = client.send(
+            HttpRequest.newBuilder(URI.create(BASE + path)).GET().build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        if (res.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + res.statusCode());
+        }
+        return res.body();
+    }
+
+    @Benchmark
+    public byte[] tasksAsManager() throws Exception {
+        return get(manager, "/api/tasks");
+    }
+
+    @Benchmark
+    public byte[] tasksAsStaff() throws Exception {
+        return get(staff, "/api/tasks");
+    }
+
+    @Benchmark
+    public byte[] tasksFirstPage() throws Exception {
+        return get(manager, "/api/tasks?limit=50");
+    }
+
+    @Benchmark
+    public byte[] commentCounts() throws Exception {
+        return get(manager, "/api/tasks/comment-counts");
+    }
+
+    @Benchmark
+    public byte[] notifications() throws Exception {
+        return get(staff, "/api/notifications");
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.tms.bench;
+
+import com.example.tms.dao.TaskDAO;
+import com.example.tms.model.Task;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson cost of a task list on its own, without JDBC: one big String vs streaming to a Writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tasks;
+
+    private final Gson gson = new Gson();
+    private List<Task> taskList;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDataset.open(tasks);
+        taskList = new TaskDAO().findAll();
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return gson.toJson(taskList);
+    }
+
+    @Benchmark
+    public void jsonWriterStream() throws Exception {
+        JsonWriter writer = gson.newJsonWriter(Writer.nullWriter());
+        writer.beginArray();
+        for (Task t : taskList) {
+            gson.toJson(t, Task.class, writer);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.tms.bench;
+
+import com.example.tms.dao.TaskDAO;
+import com.example.tms.dao.TaskPage;
+import com.example.tms.dao.TaskQuery;
+import com.example.tms.model.Task;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskDaoBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tasks;
+
+    private BenchmarkDataset dataset;
+    private TaskDAO taskDAO;
+    private int hotTaskId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = BenchmarkDataset.open(tasks);
+        taskDAO = new TaskDAO();
+        hotTaskId = tasks / 2;
+    }
+
+    @Benchmark
+    public List<Task> findAll() throws Exception {
+        return taskDAO.findAll();
+    }
+
+    @Benchmark
+    public List<Task> findByAssignee() throws Exception {
+        return taskDAO.findByAssignee(dataset.staffUserId);
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole bh) throws Exception {
+        taskDAO.streamAll(bh::consume);
+    }
+
+    @Benchmark
+    public TaskPage firstPageOf50() throws Exception {
+        TaskQuery query = new TaskQuery();
+        query.setLimit(50);
+        return taskDAO.findPage(query);
+    }
+
+    @Benchmark
+    public Task findById() throws Exception {
+        return taskDAO.findById(hotTaskId);
+    }
+
+    // full update path: UPDATE + saveAssigneesForTask + reload
+    @Benchmark
+    public Task update() throws Exception {
+        Task task = taskDAO.findById(hotTaskId);
+        return taskDAO.update(task);
+    }
+}
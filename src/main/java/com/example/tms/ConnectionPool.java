@@ -0,0 +1,351 @@
+package com.example.tms;
+
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of long-lived SQLite connections.
+ * Callers keep using try-with-resources: close() on a leased connection hands it back to the pool.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final String APP_PACKAGE = "com.example.tms.";
+    private static final String DAO_PACKAGE = "com.example.tms.dao.";
+
+    private final DatabaseConfig config;
+    private final SQLiteConfig sqliteConfig;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private volatile boolean closed;
+    private volatile LeaseObserver observer;
+    private volatile SqlProfiler profiler;
+
+    public ConnectionPool(DatabaseConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getPoolSize(), true);
+
+        sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setJournalMode(SQLiteConfig.JournalMode.valueOf(config.getJournalMode().toUpperCase()));
+        sqliteConfig.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(config.getSynchronous().toUpperCase()));
+        // negative cache_size is interpreted by SQLite as KiB rather than pages
+        sqliteConfig.setCacheSize(-config.getCacheSizeKb());
+        sqliteConfig.setBusyTimeout(config.getBusyTimeoutMs());
+        // take the write lock up front so read-then-write transactions can't deadlock on upgrade
+        sqliteConfig.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+    }
+
+    public Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            waitCount.incrementAndGet();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(config.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (!acquired) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + config.getAcquireTimeoutMs()
+                        + " ms waiting for a database connection");
+            }
+        }
+        long waited = System.nanoTime() - start;
+        recordWait(waited);
+
+        Connection physical = idle.poll();
+        try {
+            if (physical == null || physical.isClosed()) {
+                if (physical != null) {
+                    open.decrementAndGet();
+                }
+                physical = openConnection();
+            }
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+
+        active.incrementAndGet();
+        LeaseObserver obs = observer;
+        SqlProfiler prof = profiler;
+        String caller = obs != null || prof != null ? callerOf() : null;
+        if (prof != null) {
+            prof.recordAcquire(caller, waited);
+        }
+        return lease(physical, obs, prof, caller, waited);
+    }
+
+    /**
+     * Reports every returned lease to the observer, labelled with the DAO method that took it.
+     */
+    public void setObserver(LeaseObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Routes every statement run on leased connections through the profiler.
+     */
+    public void setProfiler(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // first frame in the DAO package, e.g. "TaskDAO.findById"; SQL issued elsewhere in the
+    // app is labelled with its class ("Main"), anything else is "other"
+    private static String callerOf() {
+        return StackWalker.getInstance().walk(frames -> frames
+            .filter(f -> f.getClassName().startsWith(APP_PACKAGE)
+                    && !f.getClassName().equals(ConnectionPool.class.getName())
+                    && !f.getClassName().startsWith(ConnectionPool.class.getName() + "$")
+                    && !f.getClassName().equals(Database.class.getName()))
+            .findFirst()
+            .map(f -> f.getClassName().startsWith(DAO_PACKAGE)
+                    ? f.getClassName().substring(DAO_PACKAGE.length()) + "." + f.getMethodName()
+                    : f.getClassName().substring(APP_PACKAGE.length()))
+            .orElse("other"));
+    }
+
+    private void recordWait(long waitedNanos) {
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitedNanos);
+        maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(config.getUrl(), sqliteConfig.toProperties());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA mmap_size = " + config.getMmapSizeBytes());
+        }
+        open.incrementAndGet();
+        return conn;
+    }
+
+    private void release(Connection physical) {
+        try {
+            if (closed) {
+                closeQuietly(physical);
+                return;
+            }
+            // never hand the next caller a connection with a half-finished transaction
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idle.offer(physical);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void closeQuietly(Connection physical) {
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // already broken, nothing more to do
+        }
+        open.decrementAndGet();
+    }
+
+    private Connection lease(Connection physical, LeaseObserver obs, SqlProfiler prof, String caller,
+                             long waitedNanos) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            new LeaseHandler(physical, obs, prof, caller, waitedNanos)
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection conn;
+        while ((conn = idle.poll()) != null) {
+            closeQuietly(conn);
+        }
+    }
+
+    public Stats stats() {
+        long acquires = acquireCount.get();
+        return new Stats(
+            config.getPoolSize(),
+            open.get(),
+            active.get(),
+            idle.size(),
+            permits.getQueueLength(),
+            acquires,
+            waitCount.get(),
+            timeoutCount.get(),
+            acquires == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / acquires,
+            maxWaitNanos.get() / 1_000_000.0
+        );
+    }
+
+    private class LeaseHandler implements InvocationHandler {
+        private final Connection physical;
+        private final LeaseObserver observer;
+        private final SqlProfiler profiler;
+        private final String caller;
+        private final long waitedNanos;
+        private final long leasedAt = System.nanoTime();
+        private boolean returned;
+
+        LeaseHandler(Connection physical, LeaseObserver observer, SqlProfiler profiler, String caller,
+                     long waitedNanos) {
+            this.physical = physical;
+            this.observer = observer;
+            this.profiler = profiler;
+            this.caller = caller;
+            this.waitedNanos = waitedNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                        if (observer != null) {
+                            observer.leaseClosed(caller, waitedNanos, System.nanoTime() - leasedAt);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (profiler != null) {
+                        if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                            return profiler.wrap((PreparedStatement) result, (String) args[0], physical, caller);
+                        }
+                        if (method.getName().equals("createStatement")) {
+                            return profiler.wrap((Statement) result, physical, caller);
+                        }
+                    }
+                    return result;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface LeaseObserver {
+        void leaseClosed(String caller, long waitNanos, long heldNanos);
+    }
+
+    /**
+     * Point-in-time view of the pool, serialized as-is by the health endpoint.
+     */
+    public static class Stats {
+        private final int maxSize;
+        private final int open;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long acquireCount;
+        private final long waitCount;
+        private final long timeoutCount;
+        private final double avgWaitMs;
+        private final double maxWaitMs;
+
+        Stats(int maxSize, int open, int active, int idle, int waiting, long acquireCount,
+              long waitCount, long timeoutCount, double avgWaitMs, double maxWaitMs) {
+            this.maxSize = maxSize;
+            this.open = open;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.acquireCount = acquireCount;
+            this.waitCount = waitCount;
+            this.timeoutCount = timeoutCount;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public int getOpen() {
+            return open;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public long getAcquireCount() {
+            return acquireCount;
+        }
+
+        public long getWaitCount() {
+            return waitCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public double getAvgWaitMs() {
+            return avgWaitMs;
+        }
+
+        public double getMaxWaitMs() {
+            return maxWaitMs;
+        }
+    }
+}
@@ -4,42 +4,116 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.SQLException;
 import java.util.stream.Collectors;
 
 public class Database {
 
-    private static final String DB_URL = "jdbc:sqlite:taskmanager.db";
+    private static final DatabaseConfig CONFIG = DatabaseConfig.fromSystemProperties();
+    private static final ConnectionPool POOL = new ConnectionPool(CONFIG);
+
+    /**
+     * Ordered schema migrations. Entry i brings the database to version i + 1
+     * (tracked in PRAGMA user_version). Only ever append to this list.
+     */
+    private static final String[] MIGRATIONS = {
+        "schema.sql",
+        "migrations/002_add_indexes.sql",
+        "migrations/003_notification_feed.sql",
+        "migrations/004_task_changes.sql",
+        "migrations/005_search.sql",
+        "migrations/006_due_date.sql",
+        "migrations/007_recurring.sql",
+        "migrations/008_reminders.sql",
+        "migrations/009_former_assignees.sql",
+    };
 
     static {
         try {
-            initDatabase();
+            migrate();
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize database", e);
         }
+        Runtime.getRuntime().addShutdownHook(new Thread(POOL::close, "db-pool-shutdown"));
     }
 
+    /**
+     * Leases a pooled connection. Closing it returns it to the pool.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        return POOL.acquire();
     }
 
-    private static void initDatabase() throws Exception {
-        // Load schema.sql from resources
-        InputStream inputStream = Database.class.getClassLoader().getResourceAsStream("schema.sql");
+    public static void observeConnections(ConnectionPool.LeaseObserver observer) {
+        POOL.setObserver(observer);
+    }
 
-        if (inputStream == null) {
-            throw new Exception("schema.sql not found in resources folder!");
+    public static void profileStatements(SqlProfiler profiler) {
+        POOL.setProfiler(profiler);
+    }
+
+    public static ConnectionPool.Stats poolStats() {
+        return POOL.stats();
+    }
+
+    public static int schemaVersion() throws SQLException {
+        try (Connection conn = getConnection()) {
+            return readUserVersion(conn);
         }
+    }
 
-        String schemaSQL;
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            schemaSQL = reader.lines().collect(Collectors.joining("\n"));
+    /**
+     * Applies every migration newer than the database's user_version, each in its own transaction.
+     * Databases created before versioning report version 0; the baseline script is idempotent
+     * (CREATE ... IF NOT EXISTS) so it is safe to run against them.
+     */
+    private static void migrate() throws Exception {
+        try (Connection conn = getConnection()) {
+            int current = readUserVersion(conn);
+
+            if (current > MIGRATIONS.length) {
+                throw new Exception("Database schema version " + current
+                        + " is newer than this build supports (" + MIGRATIONS.length + ")");
+            }
+
+            for (int version = current + 1; version <= MIGRATIONS.length; version++) {
+                String script = readResource(MIGRATIONS[version - 1]);
+
+                conn.setAutoCommit(false);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate(script);
+                    stmt.executeUpdate("PRAGMA user_version = " + version);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new Exception("Migration " + MIGRATIONS[version - 1] + " failed", e);
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+                System.out.println("Database migrated to version " + version + " (" + MIGRATIONS[version - 1] + ")");
+            }
+        }
+    }
+
+    private static int readUserVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
         }
+    }
 
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(schemaSQL);
+    private static String readResource(String path) throws Exception {
+        InputStream inputStream = Database.class.getClassLoader().getResourceAsStream(path);
+
+        if (inputStream == null) {
+            throw new Exception(path + " not found in resources folder!");
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+            return reader.lines().collect(Collectors.joining("\n"));
         }
     }
 }
@@ -0,0 +1,78 @@
+package com.example.tms;
+
+/**
+ * Startup settings for the SQLite connection pool.
+ * Every value can be overridden with a -D system property, e.g. -Dtms.db.poolSize=16.
+ */
+public class DatabaseConfig {
+
+    private final String url;
+    private final int poolSize;
+    private final long acquireTimeoutMs;
+    private final int busyTimeoutMs;
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSizeKb;
+    private final long mmapSizeBytes;
+
+    public DatabaseConfig(String url, int poolSize, long acquireTimeoutMs, int busyTimeoutMs,
+                          String journalMode, String synchronous, int cacheSizeKb, long mmapSizeBytes) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be at least 1");
+        }
+        this.url = url;
+        this.poolSize = poolSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.busyTimeoutMs = busyTimeoutMs;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSizeKb = cacheSizeKb;
+        this.mmapSizeBytes = mmapSizeBytes;
+    }
+
+    public static DatabaseConfig fromSystemProperties() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new DatabaseConfig(
+            System.getProperty("tms.db.url", "jdbc:sqlite:taskmanager.db"),
+            Integer.getInteger("tms.db.poolSize", Math.max(4, cores * 2)),
+            Long.getLong("tms.db.acquireTimeoutMs", 5_000L),
+            Integer.getInteger("tms.db.busyTimeoutMs", 5_000),
+            System.getProperty("tms.db.journalMode", "WAL"),
+            System.getProperty("tms.db.synchronous", "NORMAL"),
+            Integer.getInteger("tms.db.cacheSizeKb", 16_384),
+            Long.getLong("tms.db.mmapSizeBytes", 256L * 1024 * 1024)
+        );
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getAcquireTimeoutMs() {
+        return acquireTimeoutMs;
+    }
+
+    public int getBusyTimeoutMs() {
+        return busyTimeoutMs;
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSizeKb() {
+        return cacheSizeKb;
+    }
+
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+}
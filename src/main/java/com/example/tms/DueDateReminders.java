@@ -0,0 +1,322 @@
+package com.example.tms;
+
+import com.example.tms.dao.TaskDAO;
+import com.example.tms.dao.TaskListener;
+import com.example.tms.model.Task;
+import com.example.tms.model.TaskStatus;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends "due soon" and "overdue" notifications as due dates come up.
+ *
+ * Reminders wait in a priority queue ordered by the time they fire. Only tasks due in the
+ * next day or so are held: the window moves forward a day at a time with an indexed due_date
+ * query, and TaskDAO writes update the queue as they commit, so the table is never rescanned.
+ * Every tick sends what has come due, in batches, through {@link TaskDAO#sendReminders}, which
+ * records each reminder in the same transaction as its notifications. After a restart the
+ * reminders of the last lookbackDays that never went out are loaded again; tasks due before
+ * that don't get any. due_at has no time zone and is read in tms.reminders.zone.
+ */
+public class DueDateReminders implements TaskListener {
+
+    private final TaskDAO taskDAO;
+    private final ZoneId zone;
+    private final long dueSoonMillis;
+    private final int lookbackDays;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    // everything below is guarded by this
+    private final PriorityQueue<Reminder> queue = new PriorityQueue<>();
+    // task id -> the due_at its queued reminders are for; queue entries for any other due_at are stale
+    private final Map<Integer, String> scheduled = new HashMap<>();
+    // tasks due on or before this day have been loaded; later ones are left to the next extend
+    private LocalDate loadedThrough;
+
+    private final AtomicLong sentDueSoon = new AtomicLong();
+    private final AtomicLong sentOverdue = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public DueDateReminders(TaskDAO taskDAO) {
+        this.taskDAO = taskDAO;
+        this.zone = ZoneId.of(System.getProperty("tms.reminders.zone", "UTC"));
+        this.dueSoonMillis = Long.getLong("tms.reminders.dueSoonMinutes", 60L) * 60_000;
+        this.lookbackDays = Integer.getInteger("tms.reminders.lookbackDays", 1);
+        this.batchSize = Integer.getInteger("tms.reminders.batchSize", 500);
+        this.loadedThrough = LocalDate.now(zone).minusDays(lookbackDays + 1);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "due-reminders");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts ticking. Call it after registering this as a TaskListener: the first tick loads the
+     * window, and a write committed before the listener is in place could be missed.
+     */
+    public void start() {
+        long tick = Long.getLong("tms.reminders.tickSeconds", 15L);
+        executor.scheduleWithFixedDelay(this::tick, 0, tick, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "due-reminders-shutdown"));
+    }
+
+    private void tick() {
+        try {
+            extendWindow();
+            sendDue();
+        } catch (Exception e) {
+            // nothing was recorded as sent, so the reminders are still queued for the next tick
+            failures.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the days that have come within reach of a reminder since the last tick.
+     */
+    private void extendWindow() throws SQLException {
+        LocalDate target = ZonedDateTime.now(zone).plus(dueSoonMillis, ChronoUnit.MILLIS).toLocalDate().plusDays(1);
+        LocalDate after;
+        synchronized (this) {
+            if (!loadedThrough.isBefore(target)) {
+                return;
+            }
+            after = loadedThrough;
+            // writes committed from here on queue themselves, so none fall between the query and the window
+            loadedThrough = target;
+        }
+
+        Map<Integer, String> dueSoon;
+        Map<Integer, String> overdue;
+        try {
+            dueSoon = taskDAO.findUnreminded(TaskDAO.DUE_SOON, after, target);
+            overdue = taskDAO.findUnreminded(TaskDAO.OVERDUE, after, target);
+        } catch (SQLException e) {
+            synchronized (this) {
+                loadedThrough = after;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Integer, String> e : dueSoon.entrySet()) {
+                schedule(e.getKey(), e.getValue(), TaskDAO.DUE_SOON);
+            }
+            for (Map.Entry<Integer, String> e : overdue.entrySet()) {
+                schedule(e.getKey(), e.getValue(), TaskDAO.OVERDUE);
+            }
+        }
+    }
+
+    /**
+     * Queues one loaded reminder, unless a write since the query moved the task to another due date.
+     */
+    private void schedule(int taskId, String dueAt, String kind) {
+        String current = scheduled.putIfAbsent(taskId, dueAt);
+        if (current != null && !current.equals(dueAt)) {
+            return;
+        }
+        Long due = dueMillis(dueAt);
+        if (due != null) {
+            queue.add(new Reminder(taskId, dueAt, kind, due));
+        }
+    }
+
+    private void sendDue() throws SQLException {
+        while (true) {
+            long now = System.currentTimeMillis();
+            List<Reminder> batch = new ArrayList<>();
+            synchronized (this) {
+                while (!queue.isEmpty() && queue.peek().fireAt <= now && batch.size() < batchSize) {
+                    Reminder r = queue.poll();
+                    if (!r.dueAt.equals(scheduled.get(r.taskId))) {
+                        continue;
+                    }
+                    if (TaskDAO.OVERDUE.equals(r.kind)) {
+                        // the last reminder a due date gets
+                        scheduled.remove(r.taskId);
+                        batch.add(r);
+                    } else if (r.dueAtMillis > now) {
+                        // "due soon" for a task that is overdue by now would only be noise
+                        batch.add(r);
+                    }
+                }
+                // entries of rescheduled or finished tasks stay in the heap until they come up; drop them in bulk
+                if (queue.size() > 4 * scheduled.size() + 1024) {
+                    queue.removeIf(r -> !r.dueAt.equals(scheduled.get(r.taskId)));
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, String> dueSoon = new HashMap<>();
+            Map<Integer, String> overdue = new HashMap<>();
+            for (Reminder r : batch) {
+                (TaskDAO.OVERDUE.equals(r.kind) ? overdue : dueSoon).put(r.taskId, r.dueAt);
+            }
+            try {
+                sentDueSoon.addAndGet(taskDAO.sendReminders(TaskDAO.DUE_SOON, dueSoon));
+                sentOverdue.addAndGet(taskDAO.sendReminders(TaskDAO.OVERDUE, overdue));
+            } catch (SQLException e) {
+                synchronized (this) {
+                    for (Reminder r : batch) {
+                        scheduled.putIfAbsent(r.taskId, r.dueAt);
+                        queue.add(r);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void taskWritten(Task task) {
+        String dueAt = task.getDueAt();
+        Long due = dueMillis(dueAt);
+        synchronized (this) {
+            LocalDate day = due != null ? LocalDate.parse(dueAt.substring(0, 10)) : null;
+            if (day == null || task.getStatus() == TaskStatus.DONE || day.isAfter(loadedThrough)
+                    || day.isBefore(LocalDate.now(zone).minusDays(lookbackDays))) {
+                // nothing to remind of yet (or anymore); the window extension picks up later days
+                scheduled.remove(task.getId());
+                return;
+            }
+            if (dueAt.equals(scheduled.get(task.getId()))) {
+                return;
+            }
+            // whether a reminder already went out for this due_at is checked when it is sent
+            scheduled.put(task.getId(), dueAt);
+            queue.add(new Reminder(task.getId(), dueAt, TaskDAO.DUE_SOON, due));
+            queue.add(new Reminder(task.getId(), dueAt, TaskDAO.OVERDUE, due));
+        }
+    }
+
+    @Override
+    public synchronized void taskDeleted(int taskId) {
+        scheduled.remove(taskId);
+    }
+
+    /**
+     * When a due_at ("2026-10-18 09:00:00", "2026-10-18T09:00", "2026-10-18") falls due, in
+     * epoch millis. A bare date is due at the end of that day. Null if it doesn't start with a date.
+     */
+    private Long dueMillis(String dueAt) {
+        if (dueAt == null || dueAt.length() < 10) {
+            return null;
+        }
+        LocalDateTime due;
+        try {
+            LocalDate day = LocalDate.parse(dueAt.substring(0, 10));
+            due = day.plusDays(1).atStartOfDay();
+            if (dueAt.length() > 11) {
+                try {
+                    due = day.atTime(LocalTime.parse(dueAt.substring(11)));
+                } catch (DateTimeParseException e) {
+                    // unreadable time of day: treat it like a bare date
+                }
+            }
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        return due.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(scheduled.size(), queue.size(), loadedThrough.toString(),
+                sentDueSoon.get(), sentOverdue.get(), failures.get());
+    }
+
+    private class Reminder implements Comparable<Reminder> {
+        final int taskId;
+        final String dueAt;
+        final String kind;
+        final long dueAtMillis;
+        final long fireAt;
+
+        Reminder(int taskId, String dueAt, String kind, long dueAtMillis) {
+            this.taskId = taskId;
+            this.dueAt = dueAt;
+            this.kind = kind;
+            this.dueAtMillis = dueAtMillis;
+            this.fireAt = TaskDAO.OVERDUE.equals(kind) ? dueAtMillis : dueAtMillis - dueSoonMillis;
+        }
+
+        @Override
+        public int compareTo(Reminder other) {
+            int c = Long.compare(fireAt, other.fireAt);
+            return c != 0 ? c : Integer.compare(taskId, other.taskId);
+        }
+    }
+
+    public static class Stats {
+        private final int tasks;
+        private final int queued;
+        private final String loadedThrough;
+        private final long sentDueSoon;
+        private final long sentOverdue;
+        private final long failures;
+
+        Stats(int tasks, int queued, String loadedThrough, long sentDueSoon, long sentOverdue, long failures) {
+            this.tasks = tasks;
+            this.queued = queued;
+            this.loadedThrough = loadedThrough;
+            this.sentDueSoon = sentDueSoon;
+            this.sentOverdue = sentOverdue;
+            this.failures = failures;
+        }
+
+        public int getTasks() {
+            return tasks;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public String getLoadedThrough() {
+            return loadedThrough;
+        }
+
+        public long getSentDueSoon() {
+            return sentDueSoon;
+        }
+
+        public long getSentOverdue() {
+            return sentOverdue;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+    }
+}
@@ -1,39 +1,85 @@
 package com.example.tms;
 
+import static com.example.tms.metrics.Metrics.timed;
 import static spark.Spark.*;
 
 import com.example.tms.dao.CommentDAO;
 import com.example.tms.dao.NotificationDAO;
 import com.example.tms.dao.TaskDAO;
+import com.example.tms.dao.TaskPage;
+import com.example.tms.dao.TaskQuery;
 import com.example.tms.dao.UserDAO;
+import com.example.tms.metrics.Metrics;
 import com.example.tms.model.Comment;
+import com.example.tms.model.CommentSummary;
 import com.example.tms.model.Notification;
 import com.example.tms.model.Task;
 import com.example.tms.model.TaskStatus;
 import com.example.tms.model.User;
 import com.example.tms.model.UserRole;
+import com.example.tms.util.LruCache;
 import com.google.gson.Gson;
-import org.mindrot.jbcrypt.BCrypt;
-
+import com.google.gson.stream.JsonWriter;
+import spark.Response;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 public class Main {
 
     private static final Gson gson = new Gson();
 
+    private static final int TASK_PAGE_SIZE = 50;
+    // GET /api/tasks switches from the streamed full list to a filtered page only for these
+    private static final List<String> TASK_QUERY_PARAMS = List.of(
+        "status", "category", "priority", "assigneeId", "dueFrom", "dueTo", "pendingReview", "limit", "cursor");
+
+    private static final int NOTIFICATION_PAGE_SIZE = 50;
+    private static final int MAX_NOTIFICATION_PAGE_SIZE = 200;
+
+    private static final int TASK_CHANGES_PAGE_SIZE = 500;
+    private static final int MAX_TASK_CHANGES_PAGE_SIZE = 2000;
+
+    private static final int MAX_CALENDAR_DAYS = 366;
+
+    private static final int SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+
+    private static final int MAX_BULK_TASKS = Integer.getInteger("tms.tasks.maxBulk", 500);
+
+    // Collection versions restart at 0 with the process, so ETags also carry its start time
+    private static final String ETAG_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
     public static void main(String[] args) {
         // Initialize DB
         new Database();
 
         port(4567);
+        configureThreads();
         staticFiles.location("/public");
 
         // Simple CORS
-        options("/*", (req, res) -> {
+        options("/*", timed((req, res) -> {
             String requestHeaders = req.headers("Access-Control-Request-Headers");
             if (requestHeaders != null) {
                 res.header("Access-Control-Allow-Headers", requestHeaders);
@@ -45,15 +91,20 @@ public class Main {
             }
 
             return "OK";
-        });
+        }));
 
         before((req, res) -> {
             res.header("Access-Control-Allow-Origin", "*");
+            res.header("Access-Control-Expose-Headers", "X-Next-Cursor, ETag");
             res.type("application/json");
         });
 
-        // Health check
-        get("/api/health", (req, res) -> "{\"status\":\"ok\"}");
+        // An error body must never be stored under a collection's ETag
+        after((req, res) -> {
+            if (res.status() >= 400 && !res.raw().isCommitted()) {
+                res.raw().setHeader("ETag", null);
+            }
+        });
 
         // DAOs
         UserDAO userDAO = new UserDAO();
@@ -61,12 +112,124 @@ public class Main {
         CommentDAO commentDAO = new CommentDAO();
         NotificationDAO notificationDAO = new NotificationDAO();
 
+        NotificationHub notificationHub = new NotificationHub(gson);
+        NotificationDAO.addListener(notificationHub);
+
+        PasswordHasher passwordHasher = new PasswordHasher();
+
+        SqlProfiler sqlProfiler = Boolean.parseBoolean(System.getProperty("tms.sql.profile", "false"))
+                ? SqlProfiler.fromSystemProperties() : null;
+        if (sqlProfiler != null) {
+            Database.profileStatements(sqlProfiler);
+        }
+
+        NotificationDispatcher notificationDispatcher;
+        try {
+            notificationDispatcher = new NotificationDispatcher(notificationDAO, gson);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to start notification dispatcher", e);
+        }
+
+        RecurringTaskScheduler recurringTasks = Boolean.parseBoolean(System.getProperty("tms.recurring.enabled", "true"))
+                ? new RecurringTaskScheduler(taskDAO) : null;
+
+        DueDateReminders dueDateReminders = Boolean.parseBoolean(System.getProperty("tms.reminders.enabled", "true"))
+                ? new DueDateReminders(taskDAO) : null;
+        if (dueDateReminders != null) {
+            TaskDAO.addListener(dueDateReminders);
+            dueDateReminders.start();
+        }
+
+        // Health check
+        get("/api/health", timed((req, res) -> {
+            Map<String, LruCache.Stats> caches = new LinkedHashMap<>();
+            caches.put("users", UserDAO.cacheStats());
+            caches.put("tasks", TaskDAO.cacheStats());
+            return gson.toJson(new HealthResponse("ok", Database.poolStats(), caches,
+                notificationHub.stats(), notificationDispatcher.stats(), passwordHasher.stats(),
+                recurringTasks != null ? recurringTasks.stats() : null,
+                dueDateReminders != null ? dueDateReminders.stats() : null));
+        }));
+
+        // Prometheus scrape endpoint
+        registerMetrics(notificationHub, notificationDispatcher, passwordHasher, recurringTasks, dueDateReminders);
+        get("/api/metrics", timed((req, res) -> {
+            res.type("text/plain; version=0.0.4; charset=utf-8");
+            return Metrics.scrape();
+        }));
+
+        // ---------------------------------------------
+        // ADMIN: SQL profile (Admin only)
+        // ---------------------------------------------
+
+        // Most expensive statement templates: ?top=20&sort=total|avg|max|calls
+        get("/api/admin/sql", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null || currentUser.getRole() != UserRole.Admin) {
+                    res.status(403);
+                    return gson.toJson(new ErrorResponse("Admins only"));
+                }
+                if (sqlProfiler == null) {
+                    res.status(404);
+                    return gson.toJson(new ErrorResponse("SQL profiling is disabled"));
+                }
+
+                Integer top;
+                try {
+                    top = parseIntParam(req, "top");
+                } catch (IllegalArgumentException e) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse(e.getMessage()));
+                }
+                int n = top == null || top <= 0 ? 20 : top;
+
+                return gson.toJson(new SqlProfileResponse(
+                    sqlProfiler.top(n, req.queryParams("sort")), sqlProfiler.acquireTimes()));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
+        // Start a fresh measurement window
+        delete("/api/admin/sql", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null || currentUser.getRole() != UserRole.Admin) {
+                    res.status(403);
+                    return gson.toJson(new ErrorResponse("Admins only"));
+                }
+                if (sqlProfiler != null) {
+                    sqlProfiler.reset();
+                }
+                return "{\"success\":true}";
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
         // ---------------------------------------------
         // AUTH ROUTES
         // ---------------------------------------------
 
         // Register
-        post("/api/auth/register", (req, res) -> {
+        post("/api/auth/register", timed((req, res) -> {
             RegisterRequest body = gson.fromJson(req.body(), RegisterRequest.class);
 
             if (body == null || body.username == null || body.email == null ||
@@ -83,8 +246,6 @@ public class Main {
                 return gson.toJson(new ErrorResponse("Invalid role"));
             }
 
-            String passwordHash = BCrypt.hashpw(body.password, BCrypt.gensalt());
-
             try {
                 User existing = userDAO.findByUsername(body.username);
                 if (existing != null) {
@@ -92,18 +253,24 @@ public class Main {
                     return gson.toJson(new ErrorResponse("Username already taken"));
                 }
 
+                String passwordHash = passwordHasher.hash(body.password);
+
                 User user = userDAO.createUser(body.username, body.email, passwordHash, role);
                 res.status(201);
                 return gson.toJson(new UserResponse(user));
+            } catch (RejectedExecutionException e) {
+                res.status(503);
+                res.header("Retry-After", "1");
+                return gson.toJson(new ErrorResponse("Server busy, try again"));
             } catch (Exception e) {
                 e.printStackTrace();
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Login
-        post("/api/auth/login", (req, res) -> {
+        post("/api/auth/login", timed((req, res) -> {
             LoginRequest body = gson.fromJson(req.body(), LoginRequest.class);
 
             if (body == null || body.username == null || body.password == null) {
@@ -118,23 +285,34 @@ public class Main {
                     return gson.toJson(new ErrorResponse("Invalid credentials"));
                 }
 
-                if (!BCrypt.checkpw(body.password, user.getPasswordHash())) {
+                if (!passwordHasher.verify(body.password, user.getPasswordHash())) {
                     res.status(401);
                     return gson.toJson(new ErrorResponse("Invalid credentials"));
                 }
 
+                // upgrade hashes made with an older cost while we have the plain password
+                if (passwordHasher.needsRehash(user.getPasswordHash())) {
+                    String oldHash = user.getPasswordHash();
+                    passwordHasher.rehashInBackground(body.password,
+                        newHash -> userDAO.updatePasswordHash(user.getId(), oldHash, newHash));
+                }
+
                 req.session(true).attribute("userId", user.getId());
 
                 return gson.toJson(new UserResponse(user));
+            } catch (RejectedExecutionException e) {
+                res.status(503);
+                res.header("Retry-After", "1");
+                return gson.toJson(new ErrorResponse("Server busy, try again"));
             } catch (Exception e) {
                 e.printStackTrace();
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Get current user
-        get("/api/auth/me", (req, res) -> {
+        get("/api/auth/me", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -152,19 +330,23 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // ---------------------------------------------
         // USERS LIST (for username mapping)
         // ---------------------------------------------
 
-        get("/api/users", (req, res) -> {
+        get("/api/users", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
                 return gson.toJson(new ErrorResponse("Not logged in"));
             }
 
+            if (notModified(req, res, "u" + UserDAO.version())) {
+                return "";
+            }
+
             String sql = "SELECT id, username, role FROM users";
             try (Connection conn = Database.getConnection();
                  PreparedStatement stmt = conn.prepareStatement(sql);
@@ -184,7 +366,7 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // ---------------------------------------------
         // TASK ROUTES
@@ -192,7 +374,7 @@ public class Main {
 
         // Get all tasks
         // Get tasks (Staff only sees their own, Manager/Admin see all)
-        get("/api/tasks", (req, res) -> {
+        get("/api/tasks", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -206,25 +388,205 @@ public class Main {
                     return gson.toJson(new ErrorResponse("User not found"));
                 }
 
-                List<Task> tasks;
+                if (notModified(req, res, taskListVersion(currentUser))) {
+                    return "";
+                }
+
+                // Filters / paging requested: push everything down into SQL, one page at a time
+                if (TASK_QUERY_PARAMS.stream().anyMatch(p -> req.queryParams(p) != null)) {
+                    TaskQuery query = parseTaskQuery(req);
+                    if (query.getLimit() == null) {
+                        query.setLimit(TASK_PAGE_SIZE);
+                    }
+                    if (currentUser.getRole() == UserRole.Staff) {
+                        query.setVisibleToUserId(userId);
+                    }
+
+                    TaskPage page = taskDAO.findPage(query);
+                    if (page.getNextCursor() != null) {
+                        res.header("X-Next-Cursor", page.getNextCursor());
+                    }
+                    return gson.toJson(page.getTasks());
+                }
+
+                // Full list: stream rows straight from the cursor instead of building a List + String
                 if (currentUser.getRole() == UserRole.Staff) {
                     // Only tasks where user is an assignee
-                    tasks = taskDAO.findByAssignee(userId);
+                    return streamJsonArray(res, writer ->
+                        taskDAO.streamByAssignee(userId, t -> gson.toJson(t, Task.class, writer)));
                 } else {
                     // Manager / Admin see all
-                    tasks = taskDAO.findAll();
+                    return streamJsonArray(res, writer ->
+                        taskDAO.streamAll(t -> gson.toJson(t, Task.class, writer)));
                 }
+            } catch (IllegalArgumentException e) {
+                res.status(400);
+                return gson.toJson(new ErrorResponse(e.getMessage()));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
 
-                return gson.toJson(tasks);
+        // Dashboard badge counts for the caller's tasks; ?today=yyyy-MM-dd (default: today in UTC)
+        get("/api/tasks/summary", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null) {
+                    res.status(401);
+                    return gson.toJson(new ErrorResponse("User not found"));
+                }
+
+                String today = req.queryParams("today");
+                if (today == null || today.isBlank()) {
+                    today = LocalDate.now(ZoneOffset.UTC).toString();
+                } else {
+                    try {
+                        today = LocalDate.parse(today.trim()).toString();
+                    } catch (DateTimeParseException e) {
+                        res.status(400);
+                        return gson.toJson(new ErrorResponse("Invalid today"));
+                    }
+                }
+
+                if (notModified(req, res, taskListVersion(currentUser) + "@" + today)) {
+                    return "";
+                }
+
+                Integer visibleTo = currentUser.getRole() == UserRole.Staff ? userId : null;
+                return gson.toJson(taskDAO.summarize(visibleTo, today));
             } catch (Exception e) {
                 e.printStackTrace();
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
+
+        // Calendar view: tasks due between ?from= and ?to= (yyyy-MM-dd, inclusive), bucketed per day
+        get("/api/tasks/calendar", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            LocalDate from;
+            LocalDate to;
+            try {
+                from = LocalDate.parse(String.valueOf(req.queryParams("from")).trim());
+                to = LocalDate.parse(String.valueOf(req.queryParams("to")).trim());
+            } catch (DateTimeParseException e) {
+                res.status(400);
+                return gson.toJson(new ErrorResponse("from and to must be dates (yyyy-MM-dd)"));
+            }
+            if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+                res.status(400);
+                return gson.toJson(new ErrorResponse("Range must be 1 to " + MAX_CALENDAR_DAYS + " days"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null) {
+                    res.status(401);
+                    return gson.toJson(new ErrorResponse("User not found"));
+                }
+
+                if (notModified(req, res, taskListVersion(currentUser))) {
+                    return "";
+                }
+
+                Integer visibleTo = currentUser.getRole() == UserRole.Staff ? userId : null;
+                return gson.toJson(taskDAO.findCalendar(from, to, visibleTo));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
+        // Delta sync: tasks changed or deleted after ?since= (a watermark from an earlier call, 0 for everything)
+        get("/api/tasks/changes", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null) {
+                    res.status(401);
+                    return gson.toJson(new ErrorResponse("User not found"));
+                }
+
+                long since;
+                Integer limit;
+                try {
+                    String sinceParam = req.queryParams("since");
+                    since = sinceParam == null || sinceParam.isBlank() ? 0 : Long.parseLong(sinceParam.trim());
+                    limit = parseIntParam(req, "limit");
+                } catch (NumberFormatException e) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse("Invalid since"));
+                } catch (IllegalArgumentException e) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse(e.getMessage()));
+                }
+                int pageSize = limit == null || limit <= 0
+                        ? TASK_CHANGES_PAGE_SIZE : Math.min(limit, MAX_TASK_CHANGES_PAGE_SIZE);
+
+                if (notModified(req, res, taskListVersion(currentUser))) {
+                    return "";
+                }
+
+                Integer visibleTo = currentUser.getRole() == UserRole.Staff ? userId : null;
+                return gson.toJson(taskDAO.findChanges(since, visibleTo, pageSize));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
+        // Comment count + last comment time per visible task (one query instead of one request per task)
+        get("/api/tasks/comment-counts", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null) {
+                    res.status(401);
+                    return gson.toJson(new ErrorResponse("User not found"));
+                }
+
+                List<CommentSummary> summaries;
+                if (currentUser.getRole() == UserRole.Staff) {
+                    summaries = commentDAO.summarizeForAssignee(userId);
+                } else {
+                    summaries = commentDAO.summarizeAll();
+                }
+
+                return gson.toJson(summaries);
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
 
         // Get one task by ID
-        get("/api/tasks/:id", (req, res) -> {
+        get("/api/tasks/:id", timed((req, res) -> {
             try {
                 int id = Integer.parseInt(req.params(":id"));
                 Task task = taskDAO.findById(id);
@@ -241,10 +603,10 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Create new task (Manager/Admin only)
-        post("/api/tasks", (req, res) -> {
+        post("/api/tasks", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -269,23 +631,7 @@ public class Main {
                     return gson.toJson(new ErrorResponse("Missing title"));
                 }
 
-                Task task = new Task();
-                task.setTitle(body.title);
-                task.setDescription(body.description != null ? body.description : "");
-
-                TaskStatus status;
-                try {
-                    status = body.status != null ? TaskStatus.valueOf(body.status) : TaskStatus.TODO;
-                } catch (IllegalArgumentException e) {
-                    status = TaskStatus.TODO;
-                }
-                task.setStatus(status);
-
-                task.setCategory(body.category != null ? body.category : "one-time");
-                int priority = (body.priority != null && body.priority > 0) ? body.priority : 3;
-                task.setPriority(priority);
-                task.setCreatedByUserId(userId);
-                task.setDueAt(body.dueAt);
+                Task task = newTaskFromRequest(body, userId);
 
                 int assigneeId = userId;
                 if (body.assigneeUsername != null && !body.assigneeUsername.isBlank()) {
@@ -304,7 +650,7 @@ public class Main {
                 Task created = taskDAO.create(task);
 
                 if (created.getAssigneeId() != created.getCreatedByUserId()) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         created.getAssigneeId(),
                         created.getId(),
                         "assigned",
@@ -319,10 +665,139 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
+
+        // Create one task per assignee, or several task payloads, in one transaction (Manager/Admin only)
+        post("/api/tasks/bulk", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null) {
+                    res.status(401);
+                    return gson.toJson(new ErrorResponse("User not found"));
+                }
+
+                if (currentUser.getRole() == UserRole.Staff) {
+                    res.status(403);
+                    return gson.toJson(new ErrorResponse("Staff users cannot create tasks"));
+                }
+
+                TaskBulkCreateRequest body = gson.fromJson(req.body(), TaskBulkCreateRequest.class);
+                if (body == null) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse("Missing body"));
+                }
+
+                // Either explicit payloads, or the template expanded once per assignee
+                List<TaskCreateRequest> payloads = new ArrayList<>();
+                if (body.tasks != null && !body.tasks.isEmpty()) {
+                    payloads.addAll(body.tasks);
+                } else {
+                    if (body.assigneeUsernames != null) {
+                        for (String username : body.assigneeUsernames) {
+                            TaskCreateRequest one = body.copyTemplate();
+                            one.assigneeUsername = username;
+                            payloads.add(one);
+                        }
+                    }
+                    if (body.assigneeIds != null) {
+                        for (Integer id : body.assigneeIds) {
+                            TaskCreateRequest one = body.copyTemplate();
+                            one.assigneeId = id;
+                            payloads.add(one);
+                        }
+                    }
+                    if (payloads.isEmpty()) {
+                        payloads.add(body.copyTemplate());
+                    }
+                }
+
+                if (payloads.size() > MAX_BULK_TASKS) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse("At most " + MAX_BULK_TASKS + " tasks per request"));
+                }
+
+                Set<String> usernames = new LinkedHashSet<>();
+                Set<Integer> assigneeIds = new LinkedHashSet<>();
+                for (TaskCreateRequest p : payloads) {
+                    if (p == null || p.title == null || p.title.isBlank()) {
+                        res.status(400);
+                        return gson.toJson(new ErrorResponse("Missing title"));
+                    }
+                    if (p.assigneeUsername != null && !p.assigneeUsername.isBlank()) {
+                        usernames.add(p.assigneeUsername);
+                    } else if (p.assigneeId != null && p.assigneeId > 0) {
+                        assigneeIds.add(p.assigneeId);
+                    }
+                }
+
+                Map<String, User> assignees = userDAO.findByUsernames(usernames);
+                List<String> unknown = new ArrayList<>();
+                for (String username : usernames) {
+                    if (!assignees.containsKey(username)) {
+                        unknown.add(username);
+                    }
+                }
+                if (!unknown.isEmpty()) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse("Unknown assignee username(s): " + String.join(", ", unknown)));
+                }
+
+                Map<Integer, User> assigneesById = userDAO.findByIds(assigneeIds);
+                List<String> unknownIds = new ArrayList<>();
+                for (Integer id : assigneeIds) {
+                    if (!assigneesById.containsKey(id)) {
+                        unknownIds.add(String.valueOf(id));
+                    }
+                }
+                if (!unknownIds.isEmpty()) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse("Unknown assignee id(s): " + String.join(", ", unknownIds)));
+                }
+
+                List<Task> tasks = new ArrayList<>(payloads.size());
+                for (TaskCreateRequest p : payloads) {
+                    Task task = newTaskFromRequest(p, userId);
+
+                    int assigneeId = userId;
+                    if (p.assigneeUsername != null && !p.assigneeUsername.isBlank()) {
+                        assigneeId = assignees.get(p.assigneeUsername).getId();
+                    } else if (p.assigneeId != null && p.assigneeId > 0) {
+                        assigneeId = p.assigneeId;
+                    }
+                    task.setAssigneeId(assigneeId);
+                    task.setPendingReview(false);
+                    tasks.add(task);
+                }
+
+                List<Task> created = taskDAO.createAll(tasks, t -> {
+                    if (t.getAssigneeId() == t.getCreatedByUserId()) {
+                        return null;
+                    }
+                    Notification n = new Notification();
+                    n.setUserId(t.getAssigneeId());
+                    n.setTaskId(t.getId());
+                    n.setType("assigned");
+                    n.setMessage("You have been assigned a new task: " + t.getTitle());
+                    return n;
+                });
+
+                res.status(201);
+                return gson.toJson(created);
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
 
         // Update a task (full update)
-        put("/api/tasks/:id", (req, res) -> {
+        put("/api/tasks/:id", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -383,10 +858,10 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Update only the status
-        patch("/api/tasks/:id/status", (req, res) -> {
+        patch("/api/tasks/:id/status", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -423,7 +898,7 @@ public class Main {
                 Task updated = taskDAO.updateStatus(id, newStatus, completedAt);
 
                 if (updated.getAssigneeId() != 0) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         updated.getAssigneeId(),
                         updated.getId(),
                         "status-changed",
@@ -431,7 +906,7 @@ public class Main {
                     );
                 }
                 if (updated.getCreatedByUserId() != userId) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         updated.getCreatedByUserId(),
                         updated.getId(),
                         "status-changed",
@@ -448,14 +923,14 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // ---------------------------------------------
         // TASK SUBMIT / APPROVE / DENY
         // ---------------------------------------------
 
         // Staff submits task for review
-        patch("/api/tasks/:id/submit", (req, res) -> {
+        patch("/api/tasks/:id/submit", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -487,7 +962,7 @@ public class Main {
 
                 // notify creator (if different)
                 if (updated.getCreatedByUserId() != userId) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         updated.getCreatedByUserId(),
                         updated.getId(),
                         "review-requested",
@@ -504,10 +979,10 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Manager/Admin approves a submitted task
-        patch("/api/tasks/:id/approve", (req, res) -> {
+        patch("/api/tasks/:id/approve", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -540,7 +1015,7 @@ public class Main {
 
                 // Notify assignee
                 if (task.getAssigneeId() != 0) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         task.getAssigneeId(),
                         task.getId(),
                         "approved",
@@ -550,7 +1025,7 @@ public class Main {
 
                 // Notify creator (if different from approver)
                 if (task.getCreatedByUserId() != userId) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         task.getCreatedByUserId(),
                         task.getId(),
                         "approved",
@@ -567,10 +1042,10 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Manager/Admin denies a submitted task
-        patch("/api/tasks/:id/deny", (req, res) -> {
+        patch("/api/tasks/:id/deny", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -600,7 +1075,7 @@ public class Main {
 
                 // Notify assignee
                 if (task.getAssigneeId() != 0) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         task.getAssigneeId(),
                         task.getId(),
                         "denied",
@@ -610,7 +1085,7 @@ public class Main {
 
                 // Notify creator (if different)
                 if (task.getCreatedByUserId() != userId) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         task.getCreatedByUserId(),
                         task.getId(),
                         "denied",
@@ -627,10 +1102,10 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Delete task
-        delete("/api/tasks/:id", (req, res) -> {
+        delete("/api/tasks/:id", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -665,13 +1140,64 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
+
+        // ---------------------------------------------
+        // SEARCH
+        // ---------------------------------------------
+
+        // Ranked full-text search over tasks and their comments: ?q=&limit=&cursor=
+        // Staff only find their own tasks; X-Next-Cursor carries the next page's cursor
+        get("/api/search", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            String q = req.queryParams("q");
+            if (q == null || q.isBlank()) {
+                res.status(400);
+                return gson.toJson(new ErrorResponse("q is required"));
+            }
+
+            try {
+                User currentUser = userDAO.findById(userId);
+                if (currentUser == null) {
+                    res.status(401);
+                    return gson.toJson(new ErrorResponse("User not found"));
+                }
+
+                Integer limit;
+                Integer cursor;
+                try {
+                    limit = parseIntParam(req, "limit");
+                    cursor = parseIntParam(req, "cursor");
+                } catch (IllegalArgumentException e) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse(e.getMessage()));
+                }
+                int pageSize = limit == null || limit <= 0 ? SEARCH_PAGE_SIZE : Math.min(limit, MAX_SEARCH_PAGE_SIZE);
+                int offset = cursor == null || cursor < 0 ? 0 : cursor;
+
+                Integer visibleTo = currentUser.getRole() == UserRole.Staff ? userId : null;
+                TaskPage page = taskDAO.search(q, visibleTo, pageSize, offset);
+                if (page.getNextCursor() != null) {
+                    res.header("X-Next-Cursor", page.getNextCursor());
+                }
+                return gson.toJson(page.getTasks());
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
 
         // ---------------------------------------------
         // COMMENT ROUTES
         // ---------------------------------------------
 
-        get("/api/tasks/:id/comments", (req, res) -> {
+        get("/api/tasks/:id/comments", timed((req, res) -> {
             try {
                 int taskId = Integer.parseInt(req.params(":id"));
                 Task task = taskDAO.findById(taskId);
@@ -690,9 +1216,9 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
-        post("/api/tasks/:id/comments", (req, res) -> {
+        post("/api/tasks/:id/comments", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -716,7 +1242,7 @@ public class Main {
                 Comment created = commentDAO.create(taskId, userId, body.text);
 
                 if (task.getCreatedByUserId() != userId) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         task.getCreatedByUserId(),
                         task.getId(),
                         "comment",
@@ -724,7 +1250,7 @@ public class Main {
                     );
                 }
                 if (task.getAssigneeId() != 0 && task.getAssigneeId() != userId) {
-                    notificationDAO.create(
+                    notificationDispatcher.enqueue(
                         task.getAssigneeId(),
                         task.getId(),
                         "comment",
@@ -742,10 +1268,10 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // Delete a comment (owner OR Manager/Admin)
-        delete("/api/comments/:id", (req, res) -> {
+        delete("/api/comments/:id", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -786,30 +1312,138 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
 
         // ---------------------------------------------
         // NOTIFICATION ROUTES
         // ---------------------------------------------
 
-        get("/api/notifications", (req, res) -> {
+        get("/api/notifications", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
                 return gson.toJson(new ErrorResponse("Not logged in"));
             }
 
+            if (notModified(req, res, "n" + userId + "." + NotificationDAO.version(userId))) {
+                return "";
+            }
+
             try {
-                List<Notification> list = notificationDAO.findByUserId(userId);
-                return gson.toJson(list);
+                // Paged feed: ?limit=&cursor=, newest first; X-Next-Cursor carries the next page's cursor
+                if (req.queryParams("limit") != null || req.queryParams("cursor") != null) {
+                    Integer limit;
+                    Integer cursor;
+                    try {
+                        limit = parseIntParam(req, "limit");
+                        cursor = parseIntParam(req, "cursor");
+                    } catch (IllegalArgumentException e) {
+                        res.status(400);
+                        return gson.toJson(new ErrorResponse(e.getMessage()));
+                    }
+                    int pageSize = limit == null || limit <= 0
+                            ? NOTIFICATION_PAGE_SIZE : Math.min(limit, MAX_NOTIFICATION_PAGE_SIZE);
+
+                    // one extra row tells whether another page follows, so a full last page gets no cursor
+                    List<Notification> page = notificationDAO.findPageByUserId(userId, cursor, pageSize + 1);
+                    if (page.size() > pageSize) {
+                        page = page.subList(0, pageSize);
+                        res.header("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).getId()));
+                    }
+                    return gson.toJson(page);
+                }
+
+                return streamJsonArray(res, writer ->
+                    notificationDAO.streamByUserId(userId, n -> gson.toJson(n, Notification.class, writer)));
             } catch (Exception e) {
                 e.printStackTrace();
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
+
+        // Server-Sent Events stream of new notifications for the logged-in user.
+        // On reconnect the browser sends Last-Event-ID and anything missed is replayed first.
+        get("/api/notifications/stream", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            try {
+                int afterId = 0;
+                NotificationHub.Backlog backlog = null;
+                String lastEventId = req.headers("Last-Event-ID");
+                if (lastEventId != null && !lastEventId.isBlank()) {
+                    afterId = Integer.parseInt(lastEventId.trim());
+                    int missedAfter = afterId;
+                    backlog = () -> notificationDAO.findByUserIdAfter(userId, missedAfter, 500);
+                }
+
+                if (!notificationHub.subscribe(userId, req.raw(), res.raw(), afterId, backlog)) {
+                    res.status(429);
+                    return gson.toJson(new ErrorResponse("Too many open notification streams"));
+                }
+                // response is already committed; Spark won't write a body
+                return "";
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return gson.toJson(new ErrorResponse("Invalid Last-Event-ID"));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
+        get("/api/notifications/unread-count", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
+
+            if (notModified(req, res, "n" + userId + "." + NotificationDAO.version(userId))) {
+                return "";
+            }
+
+            try {
+                return gson.toJson(Map.of("unread", notificationDAO.countUnread(userId)));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
+        // Bulk mark-read: {"all": true} or {"ids": [1, 2, 3]}
+        post("/api/notifications/read", timed((req, res) -> {
+            Integer userId = req.session().attribute("userId");
+            if (userId == null) {
+                res.status(401);
+                return gson.toJson(new ErrorResponse("Not logged in"));
+            }
 
-        patch("/api/notifications/:id/read", (req, res) -> {
+            try {
+                MarkReadRequest body = gson.fromJson(req.body(), MarkReadRequest.class);
+                if (body == null || (!body.all && (body.ids == null || body.ids.isEmpty()))) {
+                    res.status(400);
+                    return gson.toJson(new ErrorResponse("Provide ids or set all to true"));
+                }
+
+                int updated = body.all
+                        ? notificationDAO.markAllRead(userId)
+                        : notificationDAO.markReadBatch(userId, body.ids);
+                return gson.toJson(Map.of("updated", updated));
+            } catch (Exception e) {
+                e.printStackTrace();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }));
+
+        patch("/api/notifications/:id/read", timed((req, res) -> {
             Integer userId = req.session().attribute("userId");
             if (userId == null) {
                 res.status(401);
@@ -832,7 +1466,254 @@ public class Main {
                 res.status(500);
                 return gson.toJson(new ErrorResponse("Server error"));
             }
-        });
+        }));
+    }
+
+    /**
+     * Times every DAO connection lease and exposes pool, cache, push, queue and auth stats as metrics.
+     */
+    private static void registerMetrics(NotificationHub hub, NotificationDispatcher dispatcher, PasswordHasher hasher,
+                                        RecurringTaskScheduler recurring, DueDateReminders reminders) {
+        Database.observeConnections((caller, waitNanos, heldNanos) -> Metrics.recordDao(caller, heldNanos));
+
+        Metrics.gauge("tms_db_pool_connections", "Connections by state.", "state=\"active\"",
+            () -> Database.poolStats().getActive());
+        Metrics.gauge("tms_db_pool_connections", "Connections by state.", "state=\"idle\"",
+            () -> Database.poolStats().getIdle());
+        Metrics.gauge("tms_db_pool_waiting", "Threads waiting for a connection.", null,
+            () -> Database.poolStats().getWaiting());
+        Metrics.counter("tms_db_pool_acquires_total", "Connection leases handed out.", null,
+            () -> Database.poolStats().getAcquireCount());
+        Metrics.counter("tms_db_pool_timeouts_total", "Lease requests that timed out.", null,
+            () -> Database.poolStats().getTimeoutCount());
+        Metrics.gauge("tms_db_pool_wait_max_seconds", "Longest wait for a connection so far.", null,
+            () -> Database.poolStats().getMaxWaitMs() / 1000.0);
+
+        Map<String, Supplier<LruCache.Stats>> caches = new LinkedHashMap<>();
+        caches.put("users", UserDAO::cacheStats);
+        caches.put("tasks", TaskDAO::cacheStats);
+        for (Map.Entry<String, Supplier<LruCache.Stats>> e : caches.entrySet()) {
+            String label = "cache=\"" + e.getKey() + "\"";
+            Supplier<LruCache.Stats> stats = e.getValue();
+            Metrics.gauge("tms_cache_size", "Entries in the cache.", label, () -> stats.get().getSize());
+            Metrics.counter("tms_cache_hits_total", "Cache hits.", label, () -> stats.get().getHits());
+            Metrics.counter("tms_cache_misses_total", "Cache misses.", label, () -> stats.get().getMisses());
+            Metrics.counter("tms_cache_evictions_total", "Entries evicted for size.", label, () -> stats.get().getEvictions());
+        }
+
+        Metrics.gauge("tms_push_connections", "Open notification streams.", null, () -> hub.stats().getConnections());
+        Metrics.counter("tms_push_delivered_total", "Notifications pushed to clients.", null, () -> hub.stats().getDelivered());
+        Metrics.counter("tms_push_dropped_slow_total", "Streams dropped for falling behind.", null, () -> hub.stats().getDroppedSlow());
+
+        Metrics.gauge("tms_notification_queue_depth", "Notifications waiting to be inserted.", null,
+            () -> dispatcher.stats().getQueueDepth());
+        Metrics.counter("tms_notification_inserted_total", "Notifications written by the dispatcher.", null,
+            () -> dispatcher.stats().getInserted());
+        Metrics.counter("tms_notification_failures_total", "Failed notification batch writes.", null,
+            () -> dispatcher.stats().getFailures());
+
+        Metrics.gauge("tms_auth_queued", "Password hashes waiting for a worker.", null, () -> hasher.stats().getQueued());
+        Metrics.counter("tms_auth_rejected_total", "Auth requests rejected with 503.", null, () -> hasher.stats().getRejected());
+        Metrics.gauge("tms_auth_verify_avg_seconds", "Average password check time.", null,
+            () -> hasher.stats().getAvgVerifyMs() / 1000.0);
+
+        if (recurring != null) {
+            Metrics.counter("tms_recurring_created_total", "Recurring task occurrences materialized.", null,
+                () -> recurring.stats().getCreated());
+            Metrics.counter("tms_recurring_failures_total", "Failed materializer runs.", null,
+                () -> recurring.stats().getFailures());
+            Metrics.gauge("tms_recurring_last_run_seconds", "Duration of the last materializer run.", null,
+                () -> recurring.stats().getLastRunMs() / 1000.0);
+        }
+
+        if (reminders != null) {
+            Metrics.gauge("tms_reminders_tasks", "Tasks with a due-date reminder waiting.", null,
+                () -> reminders.stats().getTasks());
+            Metrics.counter("tms_reminders_sent_total", "Reminder notifications sent.", "kind=\"due-soon\"",
+                () -> reminders.stats().getSentDueSoon());
+            Metrics.counter("tms_reminders_sent_total", "Reminder notifications sent.", "kind=\"overdue\"",
+                () -> reminders.stats().getSentOverdue());
+            Metrics.counter("tms_reminders_failures_total", "Failed reminder ticks.", null,
+                () -> reminders.stats().getFailures());
+        }
+    }
+
+    /**
+     * Picks how Jetty runs requests: virtual threads with -Dtms.server.virtualThreads=true
+     * (Java 21+), otherwise Spark's platform thread pool, optionally resized with tms.server.maxThreads.
+     */
+    private static void configureThreads() {
+        if (Boolean.getBoolean("tms.server.virtualThreads")) {
+            EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool()));
+            System.out.println("Handling requests on virtual threads");
+            return;
+        }
+
+        Integer maxThreads = Integer.getInteger("tms.server.maxThreads");
+        if (maxThreads != null) {
+            threadPool(maxThreads);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonArrayBody {
+        void write(JsonWriter writer) throws Exception;
+    }
+
+    /**
+     * Version of the task list as this user sees it; Staff only see their own tasks.
+     */
+    private static String taskListVersion(User user) {
+        return user.getRole() == UserRole.Staff
+                ? "s" + user.getId() + "." + TaskDAO.versionForAssignee(user.getId())
+                : "t" + TaskDAO.version();
+    }
+
+    /**
+     * Sets a strong ETag for the given collection version (plus the query string, which picks
+     * the filter or page) and reports whether the client's If-None-Match already holds it. If so
+     * the status is set to 304 and the caller returns an empty body without reading anything.
+     */
+    private static boolean notModified(spark.Request req, Response res, String version) {
+        String etag = ETAG_EPOCH + "-" + version;
+        String query = req.queryString();
+        if (query != null && !query.isEmpty()) {
+            UUID digest = UUID.nameUUIDFromBytes(query.getBytes(StandardCharsets.UTF_8));
+            etag += "-" + Long.toHexString(digest.getMostSignificantBits());
+        }
+        etag = "\"" + etag + "\"";
+
+        res.header("ETag", etag);
+        // the browser may keep the body but has to revalidate it on every request
+        res.header("Cache-Control", "private, no-cache");
+
+        String ifNoneMatch = req.headers("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match compares weakly
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                res.status(304);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a JSON array directly to the servlet output stream, element by element.
+     * If something fails before the response is committed, a normal 500 error body is sent instead.
+     */
+    private static String streamJsonArray(Response res, JsonArrayBody body) {
+        HttpServletResponse raw = res.raw();
+        raw.setCharacterEncoding("UTF-8");
+
+        try {
+            JsonWriter writer = gson.newJsonWriter(
+                new BufferedWriter(new OutputStreamWriter(raw.getOutputStream(), StandardCharsets.UTF_8)));
+            writer.beginArray();
+            body.write(writer);
+            writer.endArray();
+            writer.flush();
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (!raw.isCommitted()) {
+                raw.resetBuffer();
+                res.status(500);
+                return gson.toJson(new ErrorResponse("Server error"));
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Builds a new task from the request's template fields; assignee handling is left to the caller.
+     */
+    private static Task newTaskFromRequest(TaskCreateRequest body, int userId) {
+        Task task = new Task();
+        task.setTitle(body.title);
+        task.setDescription(body.description != null ? body.description : "");
+
+        TaskStatus status;
+        try {
+            status = body.status != null ? TaskStatus.valueOf(body.status) : TaskStatus.TODO;
+        } catch (IllegalArgumentException e) {
+            status = TaskStatus.TODO;
+        }
+        task.setStatus(status);
+
+        task.setCategory(body.category != null ? body.category : "one-time");
+        int priority = (body.priority != null && body.priority > 0) ? body.priority : 3;
+        task.setPriority(priority);
+        task.setCreatedByUserId(userId);
+        task.setDueAt(body.dueAt);
+        return task;
+    }
+
+    /**
+     * Reads GET /api/tasks query parameters. Throws IllegalArgumentException on bad input.
+     */
+    private static TaskQuery parseTaskQuery(spark.Request req) {
+        TaskQuery query = new TaskQuery();
+
+        String status = req.queryParams("status");
+        if (status != null && !status.isBlank()) {
+            try {
+                query.setStatus(TaskStatus.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status");
+            }
+        }
+
+        String category = req.queryParams("category");
+        if (category != null && !category.isBlank()) {
+            query.setCategory(category);
+        }
+
+        query.setPriority(parseIntParam(req, "priority"));
+        query.setAssigneeId(parseIntParam(req, "assigneeId"));
+
+        query.setDueFrom(parseDateParam(req, "dueFrom"));
+        query.setDueTo(parseDateParam(req, "dueTo"));
+
+        String pendingReview = req.queryParams("pendingReview");
+        if (pendingReview != null && !pendingReview.isBlank()) {
+            query.setPendingReview(Boolean.parseBoolean(pendingReview));
+        }
+
+        query.setLimit(parseIntParam(req, "limit"));
+        query.setCursor(req.queryParams("cursor"));
+        return query;
+    }
+
+    private static LocalDate parseDateParam(spark.Request req, String name) {
+        String value = req.queryParams(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    private static Integer parseIntParam(spark.Request req, String name) {
+        String value = req.queryParams(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
     }
 
     // DTOs
@@ -889,6 +1770,66 @@ public class Main {
         String assigneeUsername;
     }
 
+    static class TaskBulkCreateRequest extends TaskCreateRequest {
+        List<String> assigneeUsernames;
+        List<Integer> assigneeIds;
+        List<TaskCreateRequest> tasks;
+
+        TaskCreateRequest copyTemplate() {
+            TaskCreateRequest copy = new TaskCreateRequest();
+            copy.title = title;
+            copy.description = description;
+            copy.category = category;
+            copy.priority = priority;
+            copy.status = status;
+            copy.dueAt = dueAt;
+            copy.assigneeId = assigneeId;
+            copy.assigneeUsername = assigneeUsername;
+            return copy;
+        }
+    }
+
+    static class MarkReadRequest {
+        boolean all;
+        List<Integer> ids;
+    }
+
+    static class HealthResponse {
+        String status;
+        ConnectionPool.Stats pool;
+        Map<String, LruCache.Stats> caches;
+        NotificationHub.Stats push;
+        NotificationDispatcher.Stats notificationQueue;
+        PasswordHasher.Stats auth;
+        RecurringTaskScheduler.Stats recurringTasks;
+        DueDateReminders.Stats reminders;
+
+        HealthResponse(String status, ConnectionPool.Stats pool, Map<String, LruCache.Stats> caches,
+                       NotificationHub.Stats push, NotificationDispatcher.Stats notificationQueue,
+                       PasswordHasher.Stats auth, RecurringTaskScheduler.Stats recurringTasks,
+                       DueDateReminders.Stats reminders) {
+            this.status = status;
+            this.pool = pool;
+            this.caches = caches;
+            this.push = push;
+            this.notificationQueue = notificationQueue;
+            this.auth = auth;
+            this.recurringTasks = recurringTasks;
+            this.reminders = reminders;
+        }
+    }
+
+    static class SqlProfileResponse {
+        List<SqlProfiler.StatementSummary> statements;
+        List<SqlProfiler.AcquireSummary> connectionWaits;
+
+        SqlProfileResponse(List<SqlProfiler.StatementSummary> statements,
+                           List<SqlProfiler.AcquireSummary> connectionWaits) {
+            this.statements = statements;
+            this.connectionWaits = connectionWaits;
+        }
+    }
+
     static class UserSummary {
         int id;
         String username;
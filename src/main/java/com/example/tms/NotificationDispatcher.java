@@ -0,0 +1,427 @@
+package com.example.tms;
+
+import com.example.tms.dao.NotificationDAO;
+import com.example.tms.model.Notification;
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes notification writes off the request thread.
+ *
+ * Route handlers call {@link #enqueue}; a single worker drains the bounded queue and inserts
+ * up to maxBatch notifications per transaction. Every entry is first appended to a journal
+ * file and marked committed after its batch lands, so entries still pending when the process
+ * dies are re-inserted on the next start (at-least-once). When the queue is full the caller
+ * inserts synchronously instead of dropping anything. Batches that keep failing (database
+ * unavailable) are set aside and retried every retryDelayMs until they land.
+ *
+ * The journal starts over whenever nothing is pending. If that moment doesn't come (steady
+ * traffic, or a database outage), it is compacted once it grows past journalCompactBytes:
+ * rewritten with only the pending entries and swapped in atomically.
+ */
+public class NotificationDispatcher {
+
+    // same shape as SQLite's CURRENT_TIMESTAMP, so queued and direct rows sort together
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final NotificationDAO notificationDAO;
+    private final Gson gson;
+    private final Path journalPath;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue;
+    private final Thread worker;
+
+    // entries whose insert failed every attempt; the worker retries them, they stay uncommitted until then
+    private final Queue<Pending> retry = new ConcurrentLinkedQueue<>();
+    private final long retryDelayMs;
+    // worker thread only
+    private long nextRetryAt;
+
+    // a ReentrantLock rather than a monitor: the journal write happens while it is held, and
+    // blocking I/O inside synchronized would pin the carrier when running on virtual threads
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private BufferedWriter journal;
+    private long nextSeq = 1;
+    // journaled but not yet marked committed, in journal order (guarded by journalLock)
+    private final Map<Long, Pending> uncommitted = new LinkedHashMap<>();
+    // size of the journal file, and what it was right after the last compaction
+    private long journalBytes;
+    private long compactedBytes;
+    private final long compactBytes;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    public NotificationDispatcher(NotificationDAO notificationDAO, Gson gson) throws IOException, SQLException {
+        this.notificationDAO = notificationDAO;
+        this.gson = gson;
+        this.journalPath = Paths.get(System.getProperty("tms.notifications.journal", "notifications.journal"));
+        this.maxBatch = Integer.getInteger("tms.notifications.maxBatch", 256);
+        this.queue = new ArrayBlockingQueue<>(Integer.getInteger("tms.notifications.queueCapacity", 10_000));
+        this.retryDelayMs = Long.getLong("tms.notifications.retryDelayMs", 5_000L);
+        this.compactBytes = Long.getLong("tms.notifications.journalCompactBytes", 8L * 1024 * 1024);
+
+        replayJournal();
+        this.journal = openJournal(false);
+
+        this.worker = new Thread(this::runWorker, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "notification-dispatcher-shutdown"));
+    }
+
+    /**
+     * Queues a notification for asynchronous insert. Never blocks on the database unless the
+     * queue is full.
+     */
+    public void enqueue(int userId, int taskId, String type, String message) throws SQLException {
+        Notification n = new Notification();
+        n.setUserId(userId);
+        n.setTaskId(taskId);
+        n.setType(type);
+        n.setMessage(message);
+        n.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC).format(SQLITE_TIMESTAMP));
+
+        Pending p;
+        journalLock.lock();
+        try {
+            p = new Pending(nextSeq++, n);
+            appendJournal("E " + gson.toJson(p));
+            uncommitted.put(p.seq, p);
+            if (running && queue.offer(p)) {
+                enqueued.incrementAndGet();
+                return;
+            }
+        } finally {
+            journalLock.unlock();
+        }
+
+        // queue full (or shutting down): do the insert on the caller's thread
+        callerRuns.incrementAndGet();
+        try {
+            notificationDAO.createBatch(List.of(n));
+        } catch (SQLException e) {
+            // journaled already; the worker retries it like a failed batch
+            failures.incrementAndGet();
+            retry.add(p);
+            e.printStackTrace();
+            return;
+        }
+        markCommitted(List.of(p));
+        inserted.incrementAndGet();
+    }
+
+    private void runWorker() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!retry.isEmpty() && System.currentTimeMillis() >= nextRetryAt) {
+                    Pending p;
+                    while (batch.size() < maxBatch && (p = retry.poll()) != null) {
+                        batch.add(p);
+                    }
+                    writeBatch(batch);
+                    continue;
+                }
+
+                Pending first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws InterruptedException {
+        List<Notification> rows = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            rows.add(p.notification);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                notificationDAO.createBatch(rows);
+                markCommitted(batch);
+                inserted.addAndGet(batch.size());
+                batches.incrementAndGet();
+                return;
+            } catch (SQLException e) {
+                failures.incrementAndGet();
+                if (!running) {
+                    // leave the entries uncommitted in the journal; the next start replays them
+                    e.printStackTrace();
+                    return;
+                }
+                if (attempt >= 5) {
+                    // set the batch aside instead of dropping it, so it still lands (and the
+                    // journal can be reset) once the database is back
+                    e.printStackTrace();
+                    retry.addAll(batch);
+                    nextRetryAt = System.currentTimeMillis() + retryDelayMs;
+                    return;
+                }
+                Thread.sleep(200L * attempt);
+            }
+        }
+    }
+
+    private void markCommitted(List<Pending> batch) {
+        journalLock.lock();
+        try {
+            StringBuilder line = new StringBuilder("C");
+            for (Pending p : batch) {
+                line.append(' ').append(p.seq);
+            }
+            appendJournal(line.toString());
+            for (Pending p : batch) {
+                uncommitted.remove(p.seq);
+            }
+
+            // everything journaled has been written: start the journal over
+            if (uncommitted.isEmpty()) {
+                try {
+                    journal.close();
+                    journal = openJournal(true);
+                    journalBytes = 0;
+                    compactedBytes = 0;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else if (journalBytes >= compactBytes && journalBytes >= 2 * compactedBytes) {
+                // the second condition keeps a large pending set from being rewritten on every batch
+                compactJournal();
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the journal with one that holds only the uncommitted entries. Called with
+     * journalLock held. The new file is written next to the old one and moved over it, so a
+     * crash at any point leaves one complete journal.
+     */
+    private void compactJournal() {
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        long bytes = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Pending p : uncommitted.values()) {
+                String line = "E " + gson.toJson(p);
+                out.write(line);
+                out.newLine();
+                bytes += line.length() + 1;
+            }
+        } catch (IOException e) {
+            // keep appending to the old journal; try again once it has doubled
+            e.printStackTrace();
+            compactedBytes = journalBytes;
+            return;
+        }
+        try {
+            journal.close();
+            Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            compactedBytes = bytes;
+        } catch (IOException e) {
+            e.printStackTrace();
+            compactedBytes = journalBytes;
+        }
+        try {
+            journal = openJournal(false);
+            journalBytes = Files.size(journalPath);
+        } catch (IOException e) {
+            // appends fail (and are logged) until the next reset reopens it
+            e.printStackTrace();
+        }
+    }
+
+    private void appendJournal(String line) {
+        try {
+            journal.write(line);
+            journal.newLine();
+            // close enough for UTF-8 JSON with ASCII field names; only used to decide when to compact
+            journalBytes += line.length() + 1;
+            // flush to the OS so a process crash can't lose it; no fsync per entry
+            journal.flush();
+        } catch (IOException e) {
+            // the notification still goes through the queue, it just isn't crash-safe
+            e.printStackTrace();
+        }
+    }
+
+    private BufferedWriter openJournal(boolean truncate) throws IOException {
+        return Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Re-inserts entries a previous process journaled but never marked committed.
+     */
+    private void replayJournal() throws IOException, SQLException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+
+        // an entry always comes before the line that commits it, so this only holds what is still open
+        Map<Long, Pending> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("E ")) {
+                    try {
+                        Pending p = gson.fromJson(line.substring(2), Pending.class);
+                        if (p != null && p.notification != null) {
+                            entries.put(p.seq, p);
+                        }
+                    } catch (RuntimeException e) {
+                        // torn last line from a crash mid-write
+                    }
+                } else if (line.startsWith("C ")) {
+                    for (String seq : line.substring(2).trim().split(" ")) {
+                        entries.remove(Long.parseLong(seq));
+                    }
+                }
+            }
+        }
+
+        List<Notification> missing = new ArrayList<>();
+        for (Pending p : entries.values()) {
+            missing.add(p.notification);
+        }
+
+        if (!missing.isEmpty()) {
+            for (int from = 0; from < missing.size(); from += maxBatch) {
+                notificationDAO.createBatch(missing.subList(from, Math.min(from + maxBatch, missing.size())));
+            }
+            replayed.addAndGet(missing.size());
+            System.out.println("Replayed " + missing.size() + " queued notification(s) from " + journalPath);
+        }
+
+        Files.write(journalPath, new byte[0]);
+    }
+
+    /**
+     * Stops accepting work and drains what is queued.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journalLock.lock();
+        try {
+            try {
+                journal.close();
+            } catch (IOException ignored) {
+                // nothing left to do on the way out
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(queue.size(), enqueued.get(), inserted.get(), batches.get(),
+                callerRuns.get(), failures.get(), replayed.get());
+    }
+
+    private static class Pending {
+        long seq;
+        Notification notification;
+
+        Pending(long seq, Notification notification) {
+            this.seq = seq;
+            this.notification = notification;
+        }
+    }
+
+    public static class Stats {
+        private final int queueDepth;
+        private final long enqueued;
+        private final long inserted;
+        private final long batches;
+        private final long callerRuns;
+        private final long failures;
+        private final long replayed;
+
+        Stats(int queueDepth, long enqueued, long inserted, long batches,
+              long callerRuns, long failures, long replayed) {
+            this.queueDepth = queueDepth;
+            this.enqueued = enqueued;
+            this.inserted = inserted;
+            this.batches = batches;
+            this.callerRuns = callerRuns;
+            this.failures = failures;
+            this.replayed = replayed;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getEnqueued() {
+            return enqueued;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public long getCallerRuns() {
+            return callerRuns;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getReplayed() {
+            return replayed;
+        }
+    }
+}
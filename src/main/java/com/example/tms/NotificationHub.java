@@ -0,0 +1,399 @@
+package com.example.tms;
+
+import com.example.tms.dao.NotificationListener;
+import com.example.tms.model.Notification;
+import com.google.gson.Gson;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes new notifications to connected dashboards over Server-Sent Events.
+ *
+ * Each subscriber gets a bounded outbound queue drained by a small writer pool, so a slow
+ * client never blocks the thread that created the notification. Streams are written in
+ * non-blocking mode (WriteListener), so a client that stops reading doesn't hold a writer
+ * thread either; its queue fills up and it is disconnected. The browser's EventSource
+ * reconnects with Last-Event-ID and the missed notifications are replayed from the database.
+ */
+public class NotificationHub implements NotificationListener {
+
+    private final Gson gson;
+    private final int queueCapacity;
+    private final int maxPerUser;
+
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeat;
+
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong droppedSlow = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public NotificationHub(Gson gson) {
+        this.gson = gson;
+        this.queueCapacity = Integer.getInteger("tms.push.queueCapacity", 256);
+        this.maxPerUser = Integer.getInteger("tms.push.maxConnectionsPerUser", 8);
+
+        this.writers = Executors.newFixedThreadPool(
+            Integer.getInteger("tms.push.writerThreads", 2), daemonThreads("sse-writer"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat"));
+        // comment frames keep proxies from closing idle streams and flush out dead sockets
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, 25, 25, TimeUnit.SECONDS);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Turns the current request into an event stream for the user. The backlog (null when the
+     * client has seen nothing yet) is written first.
+     *
+     * The subscriber is registered before the backlog is read, so a notification committed in
+     * between is in the backlog, the live push, or both; live frames are held back until the
+     * backlog is queued, and those the backlog already covered are dropped, so ids go out in order.
+     *
+     * @return false if the user already has the maximum number of open streams
+     */
+    public boolean subscribe(int userId, HttpServletRequest request, HttpServletResponse response,
+                             int afterId, Backlog backlog) throws Exception {
+        // the cap check and the add are one atomic step, so concurrent subscribes can't overshoot it
+        Subscriber sub = new Subscriber(userId, backlog != null);
+        AtomicBoolean admitted = new AtomicBoolean();
+        subscribers.compute(userId, (k, set) -> {
+            Set<Subscriber> subs = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (subs.size() < maxPerUser) {
+                subs.add(sub);
+                admitted.set(true);
+            }
+            return subs.isEmpty() ? null : subs;
+        });
+        if (!admitted.get()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        connected.incrementAndGet();
+
+        try {
+            if (backlog != null) {
+                List<Notification> missed = backlog.load();
+                int through = afterId;
+                StringBuilder frames = new StringBuilder();
+                for (Notification n : missed) {
+                    frames.append(frame(n));
+                    through = Math.max(through, n.getId());
+                }
+                sub.backlogLoaded(missed.isEmpty() ? null : new Frame(frames.toString(), missed.size(), through), through);
+            }
+
+            response.setContentType("text/event-stream");
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Cache-Control", "no-cache");
+            response.setHeader("X-Accel-Buffering", "no");
+
+            AsyncContext ctx = request.startAsync();
+            ctx.setTimeout(0);
+            ctx.addListener(sub);
+
+            // a few bytes, written + flushed synchronously so the response is committed before the
+            // route returns; everything after this goes through the non-blocking drain
+            ServletOutputStream out = response.getOutputStream();
+            out.write("retry: 5000\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sub.start(ctx, out);
+        } catch (Exception e) {
+            sub.close();
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public void notificationCreated(Notification notification) {
+        Set<Subscriber> userSubs = subscribers.get(notification.getUserId());
+        if (userSubs == null || userSubs.isEmpty()) {
+            return;
+        }
+
+        Frame frame = new Frame(frame(notification), 1, notification.getId());
+        for (Subscriber sub : userSubs) {
+            sub.offerLive(frame);
+        }
+    }
+
+    private String frame(Notification n) {
+        return "id: " + n.getId() + "\nevent: notification\ndata: " + gson.toJson(n) + "\n\n";
+    }
+
+    private void sendHeartbeat() {
+        for (Set<Subscriber> userSubs : subscribers.values()) {
+            for (Subscriber sub : userSubs) {
+                sub.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(connected.get(), subscribers.size(), delivered.get(), droppedSlow.get(), rejected.get());
+    }
+
+    private static final Frame HEARTBEAT = new Frame(":\n\n", 0, 0);
+
+    /**
+     * Reads the notifications a reconnecting client missed.
+     */
+    @FunctionalInterface
+    public interface Backlog {
+        List<Notification> load() throws Exception;
+    }
+
+    /**
+     * One or more encoded SSE frames, the number of notifications in them and the highest id.
+     */
+    private static class Frame {
+        final byte[] bytes;
+        final int notifications;
+        final int lastId;
+
+        Frame(String text, int notifications, int lastId) {
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+            this.notifications = notifications;
+            this.lastId = lastId;
+        }
+    }
+
+    private class Subscriber implements AsyncListener, WriteListener {
+        final int userId;
+        final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // serializes drain() between the writer pool and the container's onWritePossible
+        final Object writeLock = new Object();
+        // set once the stream is open; frames offered before that wait in the queue
+        volatile AsyncContext ctx;
+        volatile ServletOutputStream out;
+        // written since the last flush (guarded by writeLock)
+        boolean unflushed;
+        // live frames that arrived while the backlog was read; null once it is queued (guarded by this)
+        List<Frame> held;
+        // ids up to here were in the backlog (guarded by this)
+        int backlogThrough;
+
+        Subscriber(int userId, boolean hasBacklog) {
+            this.userId = userId;
+            this.held = hasBacklog ? new ArrayList<>() : null;
+        }
+
+        void offerLive(Frame frame) {
+            synchronized (this) {
+                if (held != null) {
+                    if (held.size() < queueCapacity) {
+                        held.add(frame);
+                        return;
+                    }
+                    // same as a full queue
+                    held = null;
+                    droppedSlow.incrementAndGet();
+                    close();
+                    return;
+                }
+                if (frame.lastId <= backlogThrough) {
+                    return;
+                }
+            }
+            offer(frame);
+        }
+
+        /**
+         * Queues the backlog, then the live frames it doesn't cover. Done under the lock, so a
+         * live frame arriving meanwhile waits and is queued after them.
+         */
+        synchronized void backlogLoaded(Frame backlog, int through) {
+            List<Frame> live = held;
+            held = null;
+            backlogThrough = through;
+            if (backlog != null) {
+                offer(backlog);
+            }
+            if (live != null) {
+                for (Frame frame : live) {
+                    if (frame.lastId > through) {
+                        offer(frame);
+                    }
+                }
+            }
+        }
+
+        void start(AsyncContext ctx, ServletOutputStream out) {
+            this.ctx = ctx;
+            this.out = out;
+            // from here on the stream is non-blocking; the container calls onWritePossible
+            out.setWriteListener(this);
+        }
+
+        void offer(Frame frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                // client can't keep up: cut it loose, it will reconnect and replay from the DB
+                droppedSlow.incrementAndGet();
+                close();
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                writers.execute(() -> {
+                    // cleared first, so a frame offered while this drains schedules another pass
+                    scheduled.set(false);
+                    drain();
+                });
+            }
+        }
+
+        /**
+         * Writes queued frames while the connection can take them without blocking. When it
+         * can't, the container calls onWritePossible once the client has caught up.
+         */
+        void drain() {
+            ServletOutputStream out = this.out;
+            if (out == null) {
+                return;
+            }
+            synchronized (writeLock) {
+                try {
+                    while (!closed.get() && out.isReady()) {
+                        Frame frame = queue.poll();
+                        if (frame == null) {
+                            if (!unflushed) {
+                                return;
+                            }
+                            unflushed = false;
+                            out.flush();
+                            continue;
+                        }
+                        out.write(frame.bytes);
+                        unflushed = true;
+                        delivered.addAndGet(frame.notifications);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.computeIfPresent(userId, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            connected.decrementAndGet();
+            queue.clear();
+            AsyncContext ctx = this.ctx;
+            if (ctx == null) {
+                // the stream never opened
+                return;
+            }
+            try {
+                ctx.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed by the container
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    public static class Stats {
+        private final int connections;
+        private final int users;
+        private final long delivered;
+        private final long droppedSlow;
+        private final long rejected;
+
+        Stats(int connections, int users, long delivered, long droppedSlow, long rejected) {
+            this.connections = connections;
+            this.users = users;
+            this.delivered = delivered;
+            this.droppedSlow = droppedSlow;
+            this.rejected = rejected;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getDroppedSlow() {
+            return droppedSlow;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.tms;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool.
+ *
+ * BCrypt is deliberately CPU-heavy, so during a login storm it would otherwise occupy every
+ * Jetty thread and ordinary reads would queue behind it. The pool is sized to the CPU and has
+ * a bounded queue; once that is full, calls fail fast with RejectedExecutionException and the
+ * route answers 503 instead of piling up more work.
+ */
+public class PasswordHasher {
+
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong verifies = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rehashed = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong totalVerifyNanos = new AtomicLong();
+    private final AtomicLong maxVerifyNanos = new AtomicLong();
+
+    public PasswordHasher() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.cost = Integer.getInteger("tms.auth.bcryptCost", 10);
+        int threads = Integer.getInteger("tms.auth.threads", cores);
+        int queueCapacity = Integer.getInteger("tms.auth.queueCapacity", cores * 8);
+
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "bcrypt-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes a new password with the configured cost.
+     *
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public String hash(String password) throws InterruptedException {
+        return run(() -> {
+            long start = System.nanoTime();
+            String hashed = BCrypt.hashpw(password, BCrypt.gensalt(cost));
+            record(System.nanoTime() - start, hashes, totalHashNanos, maxHashNanos);
+            return hashed;
+        });
+    }
+
+    /**
+     * Checks a password against a stored hash.
+     *
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public boolean verify(String password, String storedHash) throws InterruptedException {
+        return run(() -> {
+            long start = System.nanoTime();
+            boolean ok = BCrypt.checkpw(password, storedHash);
+            record(System.nanoTime() - start, verifies, totalVerifyNanos, maxVerifyNanos);
+            return ok;
+        });
+    }
+
+    /**
+     * True if the stored hash was made with a different cost than the configured one.
+     */
+    public boolean needsRehash(String storedHash) {
+        // $2a$10$... : the cost is the two digits after the second '$'
+        if (storedHash == null || storedHash.length() < 7 || storedHash.charAt(3) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(storedHash.substring(4, 6)) != cost;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Re-hashes the password with the configured cost in the background and hands the new hash
+     * to the sink. Skipped silently when the pool is busy; the next login tries again.
+     */
+    public void rehashInBackground(String password, HashSink sink) {
+        try {
+            executor.execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    String hashed = BCrypt.hashpw(password, BCrypt.gensalt(cost));
+                    record(System.nanoTime() - start, hashes, totalHashNanos, maxHashNanos);
+                    sink.store(hashed);
+                    rehashed.incrementAndGet();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // not worth a 503; the old hash still works
+        }
+    }
+
+    private <T> T run(Callable<T> work) throws InterruptedException {
+        Future<T> future;
+        try {
+            future = executor.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void record(long nanos, AtomicLong count, AtomicLong total, AtomicLong max) {
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Stats stats() {
+        long h = hashes.get();
+        long v = verifies.get();
+        return new Stats(
+            cost,
+            executor.getMaximumPoolSize(),
+            executor.getActiveCount(),
+            executor.getQueue().size(),
+            h,
+            v,
+            rejected.get(),
+            rehashed.get(),
+            h == 0 ? 0.0 : totalHashNanos.get() / 1_000_000.0 / h,
+            maxHashNanos.get() / 1_000_000.0,
+            v == 0 ? 0.0 : totalVerifyNanos.get() / 1_000_000.0 / v,
+            maxVerifyNanos.get() / 1_000_000.0
+        );
+    }
+
+    @FunctionalInterface
+    public interface HashSink {
+        void store(String newHash) throws Exception;
+    }
+
+    public static class Stats {
+        private final int cost;
+        private final int threads;
+        private final int active;
+        private final int queued;
+        private final long hashes;
+        private final long verifies;
+        private final long rejected;
+        private final long rehashed;
+        private final double avgHashMs;
+        private final double maxHashMs;
+        private final double avgVerifyMs;
+        private final double maxVerifyMs;
+
+        Stats(int cost, int threads, int active, int queued, long hashes, long verifies, long rejected,
+              long rehashed, double avgHashMs, double maxHashMs, double avgVerifyMs, double maxVerifyMs) {
+            this.cost = cost;
+            this.threads = threads;
+            this.active = active;
+            this.queued = queued;
+            this.hashes = hashes;
+            this.verifies = verifies;
+            this.rejected = rejected;
+            this.rehashed = rehashed;
+            this.avgHashMs = avgHashMs;
+            this.maxHashMs = maxHashMs;
+            this.avgVerifyMs = avgVerifyMs;
+            this.maxVerifyMs = maxVerifyMs;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public long getHashes() {
+            return hashes;
+        }
+
+        public long getVerifies() {
+            return verifies;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getRehashed() {
+            return rehashed;
+        }
+
+        public double getAvgHashMs() {
+            return avgHashMs;
+        }
+
+        public double getMaxHashMs() {
+            return maxHashMs;
+        }
+
+        public double getAvgVerifyMs() {
+            return avgVerifyMs;
+        }
+
+        public double getMaxVerifyMs() {
+            return maxVerifyMs;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.tms;
+
+import com.example.tms.dao.TaskDAO;
+import com.example.tms.model.Task;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns daily, weekly and monthly tasks into real tasks, one per occurrence, shortly before
+ * each occurrence is due.
+ *
+ * Every recurring task carries a cursor with the date of its next occurrence (migration 007).
+ * A run materializes occurrences up to leadDays ahead in transactions of at most batchSize
+ * (see {@link TaskDAO#materializeDue}), and the cursor moves in the same transaction as the
+ * insert, so a restart never repeats or loses one. A run stops after maxPerRun occurrences:
+ * after downtime the backlog drains over the next runs instead of all at once, and
+ * occurrences more than catchUpDays in the past are skipped.
+ */
+public class RecurringTaskScheduler {
+
+    private final TaskDAO taskDAO;
+    private final int leadDays;
+    private final int catchUpDays;
+    private final int batchSize;
+    private final int maxPerRun;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int lastRunCreated;
+    private volatile long lastRunMs;
+
+    public RecurringTaskScheduler(TaskDAO taskDAO) {
+        this.taskDAO = taskDAO;
+        this.leadDays = Integer.getInteger("tms.recurring.leadDays", 1);
+        this.catchUpDays = Integer.getInteger("tms.recurring.catchUpDays", 7);
+        this.batchSize = Integer.getInteger("tms.recurring.batchSize", 100);
+        this.maxPerRun = Integer.getInteger("tms.recurring.maxPerRun", 1_000);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recurring-tasks");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Long.getLong("tms.recurring.intervalSeconds", 60L);
+        // with a fixed delay a slow run pushes the next one back instead of overlapping it
+        executor.scheduleWithFixedDelay(this::run, 5, interval, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "recurring-tasks-shutdown"));
+    }
+
+    private void run() {
+        try {
+            runOnce();
+        } catch (Exception e) {
+            // the cursors only move with committed inserts, so the next run picks up from here
+            failures.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Materializes what is due now, up to maxPerRun occurrences.
+     *
+     * @return the number of tasks created
+     */
+    public int runOnce() throws SQLException {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate horizon = today.plusDays(leadDays);
+        LocalDate catchUpFrom = today.minusDays(catchUpDays);
+
+        int total = 0;
+        try {
+            while (total < maxPerRun) {
+                List<Task> batch = taskDAO.materializeDue(horizon, catchUpFrom, Math.min(batchSize, maxPerRun - total));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                total += batch.size();
+                created.addAndGet(batch.size());
+            }
+        } finally {
+            runs.incrementAndGet();
+            lastRunCreated = total;
+            lastRunMs = (System.nanoTime() - start) / 1_000_000;
+        }
+        if (total > 0) {
+            System.out.println("Materialized " + total + " recurring task occurrence(s)");
+        }
+        return total;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(runs.get(), created.get(), failures.get(), lastRunCreated, lastRunMs);
+    }
+
+    public static class Stats {
+        private final long runs;
+        private final long created;
+        private final long failures;
+        private final int lastRunCreated;
+        private final long lastRunMs;
+
+        Stats(long runs, long created, long failures, int lastRunCreated, long lastRunMs) {
+            this.runs = runs;
+            this.created = created;
+            this.failures = failures;
+            this.lastRunCreated = lastRunCreated;
+            this.lastRunMs = lastRunMs;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public int getLastRunCreated() {
+            return lastRunCreated;
+        }
+
+        public long getLastRunMs() {
+            return lastRunMs;
+        }
+    }
+}
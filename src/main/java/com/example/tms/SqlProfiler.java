@@ -0,0 +1,460 @@
+package com.example.tms;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Times every SQL statement that runs on a pooled connection, grouped by statement template.
+ *
+ * The pool hands statements out through proxies created here. Execution time includes the
+ * time spent stepping through the ResultSet (SQLite produces rows lazily in next()), but not
+ * the caller's own work between rows. Statements slower than the threshold go to the slow
+ * query log together with their EXPLAIN QUERY PLAN, which is captured once per template.
+ */
+public class SqlProfiler {
+
+    // "IN (?, ?, ?)" lists of any length collapse into one template
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_TEMPLATES = 10_000;
+
+    private final long slowNanos;
+    private final Path slowLogPath;
+
+    private final ConcurrentHashMap<String, String> templates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, StatementStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> plans = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AcquireStats> acquires = new ConcurrentHashMap<>();
+
+    private final ReentrantLock logLock = new ReentrantLock();
+    private BufferedWriter slowLog;
+
+    public SqlProfiler(long slowMillis, String slowLogPath) {
+        this.slowNanos = slowMillis * 1_000_000L;
+        this.slowLogPath = slowLogPath == null || slowLogPath.isBlank() ? null : Paths.get(slowLogPath);
+    }
+
+    public static SqlProfiler fromSystemProperties() {
+        return new SqlProfiler(
+            Long.getLong("tms.sql.slowMs", 100L),
+            System.getProperty("tms.sql.slowLog", "slow-queries.log")
+        );
+    }
+
+    PreparedStatement wrap(PreparedStatement stmt, String sql, Connection physical, String caller) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[]{PreparedStatement.class},
+            new StatementHandler(stmt, template(sql), physical, caller)
+        );
+    }
+
+    Statement wrap(Statement stmt, Connection physical, String caller) {
+        return (Statement) Proxy.newProxyInstance(
+            Statement.class.getClassLoader(),
+            new Class<?>[]{Statement.class},
+            new StatementHandler(stmt, null, physical, caller)
+        );
+    }
+
+    void recordAcquire(String caller, long waitNanos) {
+        acquires.computeIfAbsent(caller != null ? caller : "other", AcquireStats::new).record(waitNanos);
+    }
+
+    private String template(String sql) {
+        String cached = templates.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = WHITESPACE.matcher(IN_LIST.matcher(sql).replaceAll("IN (?, ...)")).replaceAll(" ").trim();
+        if (templates.size() < MAX_TEMPLATES) {
+            templates.put(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private void record(String template, long nanos, long rows, Connection physical, String caller) {
+        StatementStats s = stats.computeIfAbsent(template, StatementStats::new);
+        s.record(nanos, rows);
+
+        if (nanos >= slowNanos) {
+            s.slow.increment();
+            String plan = plans.computeIfAbsent(template, t -> explain(physical, t));
+            logSlow(template, nanos, rows, caller, plan);
+        }
+    }
+
+    private String explain(Connection physical, String template) {
+        String sql = template.replace("IN (?, ...)", "IN (?)");
+        try (PreparedStatement stmt = physical.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int params = stmt.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= params; i++) {
+                stmt.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (plan.length() > 0) {
+                        plan.append("; ");
+                    }
+                    plan.append(rs.getString("detail"));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            return "(no plan: " + e.getMessage() + ")";
+        }
+    }
+
+    private void logSlow(String template, long nanos, long rows, String caller, String plan) {
+        if (slowLogPath == null) {
+            return;
+        }
+        String entry = Instant.now() + " " + String.format("%.1f", nanos / 1_000_000.0) + " ms rows=" + rows
+                + " " + (caller != null ? caller : "other") + ": " + template
+                + System.lineSeparator()
+                + (plan == null || plan.isEmpty() ? "" : "    plan: " + plan + System.lineSeparator());
+
+        logLock.lock();
+        try {
+            if (slowLog == null) {
+                slowLog = Files.newBufferedWriter(slowLogPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            slowLog.write(entry);
+            slowLog.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /**
+     * The n most expensive statement templates, ordered by "total" (default), "avg", "max" or "calls".
+     */
+    public List<StatementSummary> top(int n, String orderBy) {
+        Comparator<StatementSummary> order;
+        switch (orderBy == null ? "total" : orderBy) {
+            case "avg":
+                order = Comparator.comparingDouble(StatementSummary::getAvgMs);
+                break;
+            case "max":
+                order = Comparator.comparingDouble(StatementSummary::getMaxMs);
+                break;
+            case "calls":
+                order = Comparator.comparingLong(StatementSummary::getCalls);
+                break;
+            default:
+                order = Comparator.comparingDouble(StatementSummary::getTotalMs);
+        }
+
+        List<StatementSummary> all = new ArrayList<>(stats.size());
+        for (StatementStats s : stats.values()) {
+            all.add(s.summary(plans.get(s.template)));
+        }
+        all.sort(order.reversed());
+        return all.size() > n ? new ArrayList<>(all.subList(0, n)) : all;
+    }
+
+    public List<AcquireSummary> acquireTimes() {
+        List<AcquireSummary> all = new ArrayList<>(acquires.size());
+        for (AcquireStats a : acquires.values()) {
+            all.add(a.summary());
+        }
+        all.sort(Comparator.comparingDouble(AcquireSummary::getTotalWaitMs).reversed());
+        return all;
+    }
+
+    public void reset() {
+        stats.clear();
+        acquires.clear();
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String template;
+        private final Connection physical;
+        private final String caller;
+        private ResultSetHandler openResults;
+
+        StatementHandler(Statement target, String template, Connection physical, String caller) {
+            this.target = target;
+            this.template = template;
+            this.physical = physical;
+            this.caller = caller;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                // closing the statement closes its ResultSet without going through our proxy
+                finishResults();
+                return call(target, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return call(target, method, args);
+            }
+            finishResults();
+
+            // plain Statements carry their SQL in the execute call
+            String sql = template != null ? template
+                    : args != null && args.length > 0 && args[0] instanceof String ? template((String) args[0]) : "(unknown)";
+
+            long start = System.nanoTime();
+            Object result = call(target, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof ResultSet) {
+                // the query really runs while the caller iterates; finish timing on close
+                openResults = new ResultSetHandler((ResultSet) result, sql, elapsed, physical, caller);
+                return Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    openResults
+                );
+            }
+
+            long rows = 0;
+            if (result instanceof Integer) {
+                rows = (Integer) result;
+            } else if (result instanceof Long) {
+                rows = (Long) result;
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            record(sql, elapsed, rows, physical, caller);
+            return result;
+        }
+
+        private void finishResults() {
+            if (openResults != null) {
+                openResults.finish();
+                openResults = null;
+            }
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final String template;
+        private final Connection physical;
+        private final String caller;
+        private long nanos;
+        private long rows;
+        private boolean finished;
+
+        ResultSetHandler(ResultSet target, String template, long executeNanos, Connection physical, String caller) {
+            this.target = target;
+            this.template = template;
+            this.nanos = executeNanos;
+            this.physical = physical;
+            this.caller = caller;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long start = System.nanoTime();
+                    Object hasRow = call(target, method, args);
+                    nanos += System.nanoTime() - start;
+                    if ((Boolean) hasRow) {
+                        rows++;
+                    }
+                    return hasRow;
+                }
+                case "close":
+                    try {
+                        return call(target, method, args);
+                    } finally {
+                        finish();
+                    }
+                default:
+                    return call(target, method, args);
+            }
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                record(template, nanos, rows, physical, caller);
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class StatementStats {
+        final String template;
+        final LongAdder calls = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder rows = new LongAdder();
+        final LongAdder slow = new LongAdder();
+
+        StatementStats(String template) {
+            this.template = template;
+        }
+
+        void record(long nanos, long rowCount) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            rows.add(rowCount);
+        }
+
+        StatementSummary summary(String plan) {
+            long c = calls.sum();
+            double total = totalNanos.sum() / 1_000_000.0;
+            return new StatementSummary(template, c, total, c == 0 ? 0.0 : total / c,
+                maxNanos.get() / 1_000_000.0, rows.sum(), slow.sum(), plan);
+        }
+    }
+
+    private static class AcquireStats {
+        final String caller;
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        AcquireStats(String caller) {
+            this.caller = caller;
+        }
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        AcquireSummary summary() {
+            long c = count.sum();
+            double total = totalNanos.sum() / 1_000_000.0;
+            return new AcquireSummary(caller, c, total, c == 0 ? 0.0 : total / c, maxNanos.get() / 1_000_000.0);
+        }
+    }
+
+    public static class StatementSummary {
+        private final String sql;
+        private final long calls;
+        private final double totalMs;
+        private final double avgMs;
+        private final double maxMs;
+        private final long rows;
+        private final long slowCount;
+        private final String plan;
+
+        StatementSummary(String sql, long calls, double totalMs, double avgMs, double maxMs,
+                         long rows, long slowCount, String plan) {
+            this.sql = sql;
+            this.calls = calls;
+            this.totalMs = totalMs;
+            this.avgMs = avgMs;
+            this.maxMs = maxMs;
+            this.rows = rows;
+            this.slowCount = slowCount;
+            this.plan = plan;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public double getTotalMs() {
+            return totalMs;
+        }
+
+        public double getAvgMs() {
+            return avgMs;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getSlowCount() {
+            return slowCount;
+        }
+
+        public String getPlan() {
+            return plan;
+        }
+    }
+
+    public static class AcquireSummary {
+        private final String caller;
+        private final long count;
+        private final double totalWaitMs;
+        private final double avgWaitMs;
+        private final double maxWaitMs;
+
+        AcquireSummary(String caller, long count, double totalWaitMs, double avgWaitMs, double maxWaitMs) {
+            this.caller = caller;
+            this.count = count;
+            this.totalWaitMs = totalWaitMs;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public String getCaller() {
+            return caller;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotalWaitMs() {
+            return totalWaitMs;
+        }
+
+        public double getAvgWaitMs() {
+            return avgWaitMs;
+        }
+
+        public double getMaxWaitMs() {
+            return maxWaitMs;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.tms;
+
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool that starts a new virtual thread for every task.
+ *
+ * Request handlers block on JDBC; on virtual threads that parks the virtual thread instead of
+ * holding a platform thread, so thousands of open dashboard requests don't need a thousand-thread
+ * pool. Virtual threads are a Java 21 API, so the executor is looked up reflectively: the
+ * project still builds for Java 17 and this mode simply refuses to start on older runtimes.
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+    private final ExecutorService executor;
+    private final AtomicInteger running = new AtomicInteger();
+
+    public VirtualThreadPool() {
+        try {
+            this.executor = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or newer (running "
+                    + System.getProperty("java.version") + ")", e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        // a thread is created per task, so there is never an idle one waiting around
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.tms.dao;
 
 import com.example.tms.Database;
 import com.example.tms.model.Comment;
+import com.example.tms.model.CommentSummary;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -33,7 +34,7 @@ public class CommentDAO {
             try (ResultSet keys = stmt.getGeneratedKeys()) {
                 if (keys.next()) {
                     int id = keys.getInt(1);
-                    return findById(id);
+                    return findById(conn, id);
                 }
             }
         }
@@ -60,11 +61,62 @@ public class CommentDAO {
         return list;
     }
 
-    public Comment findById(int id) throws SQLException {
-        String sql = "SELECT * FROM comments WHERE id = ?";
+    /**
+     * Comment count and latest comment time for every task that has comments.
+     */
+    public List<CommentSummary> summarizeAll() throws SQLException {
+        String sql = """
+                SELECT task_id, COUNT(*) AS cnt, MAX(created_at) AS last_at
+                FROM comments
+                GROUP BY task_id
+                """;
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return readSummaries(stmt);
+        }
+    }
+
+    /**
+     * Same as {@link #summarizeAll()} but limited to tasks the user is assigned to (Staff visibility).
+     */
+    public List<CommentSummary> summarizeForAssignee(int userId) throws SQLException {
+        String sql = """
+                SELECT c.task_id, COUNT(*) AS cnt, MAX(c.created_at) AS last_at
+                FROM comments c
+                JOIN task_assignees ta ON ta.task_id = c.task_id
+                WHERE ta.user_id = ?
+                GROUP BY c.task_id
+                """;
 
         try (Connection conn = Database.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            return readSummaries(stmt);
+        }
+    }
+
+    private List<CommentSummary> readSummaries(PreparedStatement stmt) throws SQLException {
+        List<CommentSummary> list = new ArrayList<>();
+
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                list.add(new CommentSummary(rs.getInt(1), rs.getInt("cnt"), rs.getString("last_at")));
+            }
+        }
+        return list;
+    }
+
+    public Comment findById(int id) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            return findById(conn, id);
+        }
+    }
+
+    private Comment findById(Connection conn, int id) throws SQLException {
+        String sql = "SELECT * FROM comments WHERE id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
@@ -3,12 +3,58 @@ package com.example.tms.dao;
 import com.example.tms.Database;
 import com.example.tms.model.Notification;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class NotificationDAO {
 
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<NotificationListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    // Per-user write counters, bumped once a change to that user's notifications is committed
+    private static final ConcurrentHashMap<Integer, AtomicLong> USER_SEQ = new ConcurrentHashMap<>();
+
+    public static void addListener(NotificationListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Version of one user's notifications; changes after every committed insert or read-mark.
+     */
+    public static long version(int userId) {
+        AtomicLong seq = USER_SEQ.get(userId);
+        return seq != null ? seq.get() : 0;
+    }
+
+    private static void touch(int userId) {
+        USER_SEQ.computeIfAbsent(userId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    static void fireCreated(Notification n) {
+        // every insert path calls this after its commit
+        touch(n.getUserId());
+        for (NotificationListener listener : LISTENERS) {
+            try {
+                listener.notificationCreated(n);
+            } catch (RuntimeException e) {
+                // delivery problems must never fail the write that produced the notification
+                e.printStackTrace();
+            }
+        }
+    }
+
     private Notification mapRow(ResultSet rs) throws SQLException {
         Notification n = new Notification();
         n.setId(rs.getInt("id"));
@@ -39,7 +85,9 @@ public class NotificationDAO {
             try (ResultSet keys = stmt.getGeneratedKeys()) {
                 if (keys.next()) {
                     int id = keys.getInt(1);
-                    return findById(id);
+                    Notification created = findById(conn, id);
+                    fireCreated(created);
+                    return created;
                 }
             }
         }
@@ -47,11 +95,70 @@ public class NotificationDAO {
         throw new SQLException("Failed to insert notification");
     }
 
+    /**
+     * Inserts several notifications in one transaction. Each item's createdAt must already be
+     * set (SQLite CURRENT_TIMESTAMP format); ids are filled in on the passed objects.
+     */
+    public List<Notification> createBatch(List<Notification> batch) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertBatch(conn, batch);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        for (Notification n : batch) {
+            fireCreated(n);
+        }
+        return batch;
+    }
+
+    /**
+     * Inserts on the caller's connection without committing, so other DAOs can include
+     * notifications in their own transaction. Missing createdAt values are set to now (UTC).
+     * Listeners are not told; the caller fires them once its transaction commits.
+     */
+    static void insertBatch(Connection conn, List<Notification> batch) throws SQLException {
+        String sql = "INSERT INTO notifications (user_id, task_id, type, message, created_at) VALUES (?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Notification n : batch) {
+                if (n.getCreatedAt() == null) {
+                    n.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC).format(SQLITE_TIMESTAMP));
+                }
+                stmt.setInt(1, n.getUserId());
+                stmt.setInt(2, n.getTaskId());
+                stmt.setString(3, n.getType());
+                stmt.setString(4, n.getMessage());
+                stmt.setString(5, n.getCreatedAt());
+                stmt.executeUpdate();
+
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("Failed to insert notification");
+                    }
+                    n.setId(keys.getInt(1));
+                }
+            }
+        }
+    }
+
     public Notification findById(int id) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            return findById(conn, id);
+        }
+    }
+
+    private Notification findById(Connection conn, int id) throws SQLException {
         String sql = "SELECT * FROM notifications WHERE id = ?";
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
@@ -83,6 +190,147 @@ public class NotificationDAO {
         return list;
     }
 
+    /**
+     * Notifications newer than afterId, oldest first. Used to replay what a push
+     * subscriber missed while disconnected.
+     */
+    public List<Notification> findByUserIdAfter(int userId, int afterId, int limit) throws SQLException {
+        String sql = "SELECT * FROM notifications WHERE user_id = ? AND id > ? ORDER BY id ASC LIMIT ?";
+        List<Notification> list = new ArrayList<>();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            stmt.setInt(2, afterId);
+            stmt.setInt(3, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Streaming variant of {@link #findByUserId(int)}.
+     */
+    public void streamByUserId(int userId, RowHandler<Notification> handler) throws SQLException, IOException {
+        String sql = "SELECT * FROM notifications WHERE user_id = ? ORDER BY created_at DESC";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapRow(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * One page of a user's notifications, newest first. Pass the id of the last notification
+     * from the previous page as beforeId, or null for the first page.
+     */
+    public List<Notification> findPageByUserId(int userId, Integer beforeId, int limit) throws SQLException {
+        String sql = beforeId != null
+                ? "SELECT * FROM notifications WHERE user_id = ? AND id < ? ORDER BY id DESC LIMIT ?"
+                : "SELECT * FROM notifications WHERE user_id = ? ORDER BY id DESC LIMIT ?";
+        List<Notification> list = new ArrayList<>();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            stmt.setInt(i++, userId);
+            if (beforeId != null) {
+                stmt.setInt(i++, beforeId);
+            }
+            stmt.setInt(i, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        }
+
+        return list;
+    }
+
+    public int countUnread(int userId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = 0";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Marks every unread notification of the user as read in a single UPDATE.
+     *
+     * @return number of notifications that changed
+     */
+    public int markAllRead(int userId) throws SQLException {
+        String sql = "UPDATE notifications SET is_read = 1 WHERE user_id = ? AND is_read = 0";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            int updated = stmt.executeUpdate();
+            if (updated > 0) {
+                touch(userId);
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * Marks the given notifications as read with one UPDATE per 500 ids. Ids that don't
+     * belong to the user are ignored.
+     *
+     * @return number of notifications that changed
+     */
+    public int markReadBatch(int userId, Collection<Integer> ids) throws SQLException {
+        List<Integer> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+        final int chunkSize = 500;
+        int updated = 0;
+
+        try (Connection conn = Database.getConnection()) {
+            for (int from = 0; from < unique.size(); from += chunkSize) {
+                List<Integer> chunk = unique.subList(from, Math.min(from + chunkSize, unique.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                String sql = "UPDATE notifications SET is_read = 1 WHERE user_id = ? AND is_read = 0 AND id IN ("
+                        + placeholders + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, userId);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 2, chunk.get(i));
+                    }
+                    updated += stmt.executeUpdate();
+                }
+            }
+        }
+        if (updated > 0) {
+            touch(userId);
+        }
+        return updated;
+    }
+
     public boolean markRead(int id, int userId) throws SQLException {
         // update is_read, not read
         String sql = "UPDATE notifications SET is_read = 1 WHERE id = ? AND user_id = ?";
@@ -94,6 +342,9 @@ public class NotificationDAO {
             stmt.setInt(2, userId);
 
             int updated = stmt.executeUpdate();
+            if (updated > 0) {
+                touch(userId);
+            }
             return updated > 0;
         }
     }
@@ -0,0 +1,11 @@
+package com.example.tms.dao;
+
+import com.example.tms.model.Notification;
+
+/**
+ * Told about every notification after NotificationDAO has stored it.
+ */
+@FunctionalInterface
+public interface NotificationListener {
+    void notificationCreated(Notification notification);
+}
@@ -0,0 +1,11 @@
+package com.example.tms.dao;
+
+import java.io.IOException;
+
+/**
+ * Receives rows one at a time from a DAO streaming method while the JDBC cursor is still open.
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+    void handle(T row) throws IOException;
+}
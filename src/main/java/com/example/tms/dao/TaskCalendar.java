@@ -0,0 +1,59 @@
+package com.example.tms.dao;
+
+import java.util.List;
+import java.util.Map;
+
+public class TaskCalendar {
+    private final String from;
+    private final String to;
+    // every task that shows up in the range, once, with just what the calendar draws and filters on
+    private final List<Entry> tasks;
+    // yyyy-MM-dd -> ids of the tasks on that day; days without tasks are left out
+    private final Map<String, List<Integer>> days;
+
+    public TaskCalendar(String from, String to, List<Entry> tasks, Map<String, List<Integer>> days) {
+        this.from = from;
+        this.to = to;
+        this.tasks = tasks;
+        this.days = days;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public List<Entry> getTasks() {
+        return tasks;
+    }
+
+    public Map<String, List<Integer>> getDays() {
+        return days;
+    }
+
+    public static class Entry {
+        final int id;
+        final String title;
+        final String status;
+        final String category;
+        final int priority;
+        final Integer assigneeId;
+        final int createdByUserId;
+        final String dueAt;
+
+        Entry(int id, String title, String status, String category, int priority,
+              Integer assigneeId, int createdByUserId, String dueAt) {
+            this.id = id;
+            this.title = title;
+            this.status = status;
+            this.category = category;
+            this.priority = priority;
+            this.assigneeId = assigneeId;
+            this.createdByUserId = createdByUserId;
+            this.dueAt = dueAt;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.tms.dao;
+
+import com.example.tms.model.Task;
+
+import java.util.List;
+
+public class TaskChanges {
+    // tasks created or changed since the requested watermark
+    private final List<Task> upserts;
+    // ids of deleted tasks (for Staff: their tasks that were deleted or that they were unassigned from)
+    private final List<Integer> removed;
+    // pass as ?since= on the next call
+    private final long watermark;
+    private final boolean hasMore;
+
+    public TaskChanges(List<Task> upserts, List<Integer> removed, long watermark, boolean hasMore) {
+        this.upserts = upserts;
+        this.removed = removed;
+        this.watermark = watermark;
+        this.hasMore = hasMore;
+    }
+
+    public List<Task> getUpserts() {
+        return upserts;
+    }
+
+    public List<Integer> getRemoved() {
+        return removed;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.tms.dao;
+
+import com.example.tms.model.Task;
+import com.example.tms.model.TaskStatus;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Dashboard counts kept up to date by TaskDAO writes instead of being recomputed from the table.
+ *
+ * Every task has a small entry here; a write swaps the task's old entry for its new one and
+ * adjusts the totals of everyone who can see it (the global view plus each assignee, for Staff).
+ * Entries carry the row's change_seq, so when two writers apply their reloads out of order the
+ * older state is ignored. Overdue and due-today depend on the date asked for, so due dates are
+ * kept as per-day counts and summed at read time.
+ */
+class TaskCounters {
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    // Deleted ids, so a reload that read the row before the delete can't bring the task back.
+    // Reloads register with beginRead() before they read; an id is dropped once every reload
+    // that started before its delete has finished. Two generations: deletedBefore goes as soon
+    // as no reload of the previous generation is still running.
+    private Set<Integer> deleted = new HashSet<>();
+    private Set<Integer> deletedBefore = new HashSet<>();
+    private long generation;
+    private int reads;
+    private int readsBefore;
+    private final Tally all = new Tally();
+    private final Map<Integer, Tally> byAssignee = new HashMap<>();
+    private boolean loaded;
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized void markLoaded() {
+        loaded = true;
+    }
+
+    synchronized void apply(Task task) {
+        apply(Entry.of(task));
+    }
+
+    /**
+     * Registers a reload whose rows will be applied; pass the result to endRead() once they are.
+     */
+    synchronized long beginRead() {
+        reads++;
+        return generation;
+    }
+
+    synchronized void endRead(long readGeneration) {
+        if (readGeneration == generation) {
+            reads--;
+        } else {
+            readsBefore--;
+        }
+        rotate();
+    }
+
+    private void rotate() {
+        if (readsBefore > 0 || (deleted.isEmpty() && deletedBefore.isEmpty())) {
+            return;
+        }
+        // every reload that could have read a row in deletedBefore has finished
+        deletedBefore = deleted;
+        deleted = new HashSet<>();
+        readsBefore = reads;
+        reads = 0;
+        generation++;
+    }
+
+    synchronized void apply(Entry entry) {
+        if (deleted.contains(entry.id) || deletedBefore.contains(entry.id)) {
+            return;
+        }
+        Entry old = entries.get(entry.id);
+        if (old != null) {
+            if (old.changeSeq > entry.changeSeq) {
+                return;
+            }
+            count(old, -1);
+        }
+        entries.put(entry.id, entry);
+        count(entry, 1);
+    }
+
+    synchronized void remove(int id) {
+        deleted.add(id);
+        Entry old = entries.remove(id);
+        if (old != null) {
+            count(old, -1);
+        }
+        rotate();
+    }
+
+    /**
+     * Counts for everything (userId null) or for the tasks one user is assigned to.
+     *
+     * @param today yyyy-MM-dd; due dates before it count as overdue unless the task is done
+     */
+    synchronized TaskSummary summary(Integer userId, String today) {
+        Tally t = userId == null ? all : byAssignee.get(userId);
+        if (t == null) {
+            t = new Tally();
+        }
+
+        Map<String, Long> byStatus = new TreeMap<>();
+        for (TaskStatus s : TaskStatus.values()) {
+            byStatus.put(s.name(), t.byStatus.getOrDefault(s, 0L));
+        }
+
+        long overdue = 0;
+        for (long n : t.openByDueDate.headMap(today).values()) {
+            overdue += n;
+        }
+
+        return new TaskSummary(
+            t.total,
+            byStatus,
+            new TreeMap<>(t.byCategory),
+            new TreeMap<>(t.byPriority),
+            t.pendingReview,
+            t.byDueDate.getOrDefault(today, 0L),
+            overdue
+        );
+    }
+
+    private void count(Entry e, int delta) {
+        all.add(e, delta);
+        for (int userId : e.assignees) {
+            Tally t = byAssignee.computeIfAbsent(userId, k -> new Tally());
+            t.add(e, delta);
+            if (t.total == 0) {
+                byAssignee.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * What a task contributes to the counts.
+     */
+    static class Entry {
+        final int id;
+        final TaskStatus status;
+        final String category;
+        final int priority;
+        // yyyy-MM-dd or null
+        final String dueDate;
+        final boolean pendingReview;
+        final int[] assignees;
+        final long changeSeq;
+
+        Entry(int id, TaskStatus status, String category, int priority, String dueAt,
+              boolean pendingReview, int[] assignees, long changeSeq) {
+            this.id = id;
+            this.status = status != null ? status : TaskStatus.TODO;
+            this.category = category != null && !category.isBlank() ? category : "none";
+            this.priority = priority;
+            this.dueDate = dueAt != null && dueAt.length() >= 10 ? dueAt.substring(0, 10) : null;
+            this.pendingReview = pendingReview;
+            this.assignees = assignees != null ? assignees : new int[0];
+            this.changeSeq = changeSeq;
+        }
+
+        static Entry of(Task task) {
+            List<Integer> ids = task.getAssigneeIds();
+            int[] assignees = new int[ids.size()];
+            for (int i = 0; i < assignees.length; i++) {
+                assignees[i] = ids.get(i);
+            }
+            return new Entry(task.getId(), task.getStatus(), task.getCategory(), task.getPriority(),
+                task.getDueAt(), task.isPendingReview(), assignees, task.getChangeSeq());
+        }
+    }
+
+    private static class Tally {
+        long total;
+        long pendingReview;
+        final EnumMap<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        final Map<String, Long> byCategory = new HashMap<>();
+        final Map<Integer, Long> byPriority = new HashMap<>();
+        // every task with a due date, and only the unfinished ones (for overdue)
+        final TreeMap<String, Long> byDueDate = new TreeMap<>();
+        final TreeMap<String, Long> openByDueDate = new TreeMap<>();
+
+        void add(Entry e, int delta) {
+            total += delta;
+            if (e.pendingReview) {
+                pendingReview += delta;
+            }
+            bump(byStatus, e.status, delta);
+            bump(byCategory, e.category, delta);
+            bump(byPriority, e.priority, delta);
+            if (e.dueDate != null) {
+                bump(byDueDate, e.dueDate, delta);
+                if (e.status != TaskStatus.DONE) {
+                    bump(openByDueDate, e.dueDate, delta);
+                }
+            }
+        }
+
+        private static <K> void bump(Map<K, Long> counts, K key, int delta) {
+            // drop zero counts so maps only hold keys that still have tasks
+            counts.merge(key, (long) delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
@@ -1,15 +1,140 @@
 package com.example.tms.dao;
 
 import com.example.tms.Database;
+import com.example.tms.model.Notification;
 import com.example.tms.model.Task;
+import com.example.tms.model.TaskCategory;
 import com.example.tms.model.TaskStatus;
+import com.example.tms.util.LruCache;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public class TaskDAO {
 
+    // ------------------------
+    // Task cache
+    // ------------------------
+
+    // Write-through cache of single tasks by id. Entries are stored and handed out as copies,
+    // because route handlers mutate the Task they get back before calling update().
+    private static final LruCache<Integer, Task> CACHE = new LruCache<>(
+        Integer.getInteger("tms.cache.tasks.maxSize", 5_000),
+        Long.getLong("tms.cache.tasks.ttlSeconds", 600L) * 1000
+    );
+
+    // Bumped after every write. A load may only populate the cache if no write happened
+    // while it was reading, so a slow reader can't overwrite a newer entry with stale data.
+    private static final AtomicLong WRITE_SEQ = new AtomicLong();
+
+    // Per-user write counters for the Staff view: bumped after a commit for everyone who is,
+    // or just stopped being, assigned to the written task.
+    private static final ConcurrentHashMap<Integer, AtomicLong> ASSIGNEE_SEQ = new ConcurrentHashMap<>();
+
+    // Dashboard counts, adjusted after every committed write; loaded from the table once
+    private static final TaskCounters COUNTERS = new TaskCounters();
+    private static final Object COUNTERS_LOAD_LOCK = new Object();
+
+    private static final List<TaskListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    public static void addListener(TaskListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static LruCache.Stats cacheStats() {
+        return CACHE.stats();
+    }
+
+    /**
+     * Version of the whole task collection; changes after every committed task write.
+     */
+    public static long version() {
+        return WRITE_SEQ.get();
+    }
+
+    /**
+     * Version of the tasks visible to one assignee (the Staff view).
+     */
+    public static long versionForAssignee(int userId) {
+        AtomicLong seq = ASSIGNEE_SEQ.get(userId);
+        return seq != null ? seq.get() : 0;
+    }
+
+    private static void touchAssignees(Collection<Integer> userIds) {
+        for (Integer userId : userIds) {
+            ASSIGNEE_SEQ.computeIfAbsent(userId, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static void fireWritten(Task task) {
+        for (TaskListener listener : LISTENERS) {
+            try {
+                listener.taskWritten(task);
+            } catch (RuntimeException e) {
+                // a listener problem must never fail the write that was already committed
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void fireDeleted(int id) {
+        for (TaskListener listener : LISTENERS) {
+            try {
+                listener.taskDeleted(id);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void cacheIfCurrent(long seq, int id, Task task) {
+        synchronized (CACHE) {
+            if (task != null && WRITE_SEQ.get() == seq) {
+                CACHE.put(id, new Task(task));
+            } else {
+                CACHE.invalidate(id);
+            }
+        }
+    }
+
+    /**
+     * Records a write to the given task and reloads it on the same connection,
+     * refreshing the cache with the committed row.
+     */
+    private Task reloadAfterWrite(Connection conn, int id) throws SQLException {
+        long seq = WRITE_SEQ.incrementAndGet();
+        long read = COUNTERS.beginRead();
+        try {
+            Task fresh = findById(conn, id);
+            cacheIfCurrent(seq, id, fresh);
+            if (fresh != null) {
+                COUNTERS.apply(fresh);
+                fireWritten(fresh);
+            }
+            return fresh;
+        } finally {
+            COUNTERS.endRead(read);
+        }
+    }
+
     // ------------------------
     // Internal helpers
     // ------------------------
@@ -32,6 +157,7 @@ public class TaskDAO {
         t.setCategory(rs.getString("category"));
         t.setPriority(rs.getInt("priority"));
         t.setCreatedAt(rs.getString("created_at"));
+        t.setUpdatedAt(rs.getString("updated_at"));
         t.setDueAt(rs.getString("due_at"));
         t.setCreatedByUserId(rs.getInt("created_by_user_id"));
 
@@ -46,6 +172,10 @@ public class TaskDAO {
         t.setPendingReview(pending == 1);
 
         t.setCompletedAt(rs.getString("completed_at"));
+        t.setChangeSeq(rs.getLong("change_seq"));
+
+        int seriesId = rs.getInt("series_id");
+        t.setSeriesId(rs.wasNull() ? null : seriesId);
 
         return t;
     }
@@ -65,123 +195,372 @@ public class TaskDAO {
         return list;
     }
 
-    private void saveAssigneesForTask(Connection conn, int taskId, Task task) throws SQLException {
-        // Determine final assignee list: combine assigneeId + assigneeIds
-        List<Integer> finalAssignees = new ArrayList<>();
+    /**
+     * Stitches link-table rows onto already-loaded tasks, so list queries cost two
+     * statements total instead of one per task.
+     */
+    private void attachAssignees(List<Task> tasks, PreparedStatement assigneeStmt) throws SQLException {
+        Map<Integer, Task> byId = new HashMap<>(tasks.size() * 2);
+        for (Task t : tasks) {
+            byId.put(t.getId(), t);
+        }
 
-        if (task.getAssigneeIds() != null) {
-            for (Integer id : task.getAssigneeIds()) {
-                if (id != null && !finalAssignees.contains(id)) {
-                    finalAssignees.add(id);
+        try (ResultSet rs = assigneeStmt.executeQuery()) {
+            while (rs.next()) {
+                Task t = byId.get(rs.getInt(1));
+                if (t != null) {
+                    t.getAssigneeIds().add(rs.getInt(2));
+                }
+            }
+        }
+
+        for (Task t : tasks) {
+            List<Integer> assignees = t.getAssigneeIds();
+
+            if (assignees.isEmpty() && t.getAssigneeId() != null) {
+                assignees.add(t.getAssigneeId());
+            }
+            if (!assignees.isEmpty()) {
+                t.setAssigneeId(assignees.get(0));
+            }
+        }
+    }
+
+    /**
+     * Reads (task_id, user_id) rows ordered by task_id into compact per-task id arrays.
+     */
+    private Map<Integer, int[]> loadAssigneeMap(PreparedStatement assigneeStmt) throws SQLException {
+        Map<Integer, int[]> map = new HashMap<>();
+        int currentTask = -1;
+        int[] buf = new int[8];
+        int n = 0;
+
+        try (ResultSet rs = assigneeStmt.executeQuery()) {
+            while (rs.next()) {
+                int taskId = rs.getInt(1);
+                if (taskId != currentTask) {
+                    if (n > 0) {
+                        map.put(currentTask, Arrays.copyOf(buf, n));
+                    }
+                    currentTask = taskId;
+                    n = 0;
                 }
+                if (n == buf.length) {
+                    buf = Arrays.copyOf(buf, n * 2);
+                }
+                buf[n++] = rs.getInt(2);
             }
         }
+        if (n > 0) {
+            map.put(currentTask, Arrays.copyOf(buf, n));
+        }
+        return map;
+    }
 
-        if (task.getAssigneeId() != null && task.getAssigneeId() > 0 && !finalAssignees.contains(task.getAssigneeId())) {
-            finalAssignees.add(task.getAssigneeId());
+    private void applyAssignees(Task t, int[] ids) {
+        List<Integer> assignees = t.getAssigneeIds();
+        if (ids != null) {
+            for (int id : ids) {
+                assignees.add(id);
+            }
         }
 
-        // Clear existing
-        try (PreparedStatement del = conn.prepareStatement(
-            "DELETE FROM task_assignees WHERE task_id = ?"
-        )) {
-            del.setInt(1, taskId);
-            del.executeUpdate();
+        if (assignees.isEmpty() && t.getAssigneeId() != null) {
+            assignees.add(t.getAssigneeId());
         }
+        if (!assignees.isEmpty()) {
+            t.setAssigneeId(assignees.get(0));
+        }
+    }
 
-        // Insert new ones
-        String insertSql = "INSERT INTO task_assignees (task_id, user_id) VALUES (?, ?)";
-        try (PreparedStatement ins = conn.prepareStatement(insertSql)) {
-            for (Integer userId : finalAssignees) {
-                ins.setInt(1, taskId);
-                ins.setInt(2, userId);
-                ins.addBatch();
+    /**
+     * Combines assigneeIds and assigneeId into one ordered, duplicate-free list and writes it
+     * back to the task: the first entry becomes the primary assignee.
+     */
+    private List<Integer> normalizeAssignees(Task task) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (task.getAssigneeIds() != null) {
+            for (Integer id : task.getAssigneeIds()) {
+                if (id != null) {
+                    ids.add(id);
+                }
             }
-            ins.executeBatch();
+        }
+        if (task.getAssigneeId() != null && task.getAssigneeId() > 0) {
+            ids.add(task.getAssigneeId());
         }
 
-        // Keep Task object in sync
+        List<Integer> finalAssignees = new ArrayList<>(ids);
         task.setAssigneeIds(finalAssignees);
-        // Also set primary assigneeId as the first one, or null
-        if (!finalAssignees.isEmpty()) {
-            task.setAssigneeId(finalAssignees.get(0));
-        } else {
-            task.setAssigneeId(null);
+        task.setAssigneeId(finalAssignees.isEmpty() ? null : finalAssignees.get(0));
+        return finalAssignees;
+    }
+
+    /**
+     * Brings the link table in line with the given assignees, touching only the rows that
+     * changed. Runs on the caller's connection and transaction.
+     *
+     * @return everyone assigned before or after, i.e. whose view of the task changes
+     */
+    private Set<Integer> saveAssigneesForTask(Connection conn, int taskId, List<Integer> assignees) throws SQLException {
+        Set<Integer> wanted = new HashSet<>(assignees);
+        Set<Integer> current = new HashSet<>(loadAssigneesForTask(conn, taskId));
+
+        List<Integer> removed = new ArrayList<>();
+        for (Integer userId : current) {
+            if (!wanted.contains(userId)) {
+                removed.add(userId);
+            }
+        }
+        List<Integer> added = new ArrayList<>();
+        for (Integer userId : assignees) {
+            if (!current.contains(userId)) {
+                added.add(userId);
+            }
+        }
+
+        if (!removed.isEmpty()) {
+            try (PreparedStatement del = conn.prepareStatement(
+                "DELETE FROM task_assignees WHERE task_id = ? AND user_id = ?"
+            )) {
+                for (Integer userId : removed) {
+                    del.setInt(1, taskId);
+                    del.setInt(2, userId);
+                    del.addBatch();
+                }
+                del.executeBatch();
+            }
+            // so the user's next delta sync reports the task as removed
+            try (PreparedStatement former = conn.prepareStatement(
+                "INSERT OR IGNORE INTO task_former_assignees (user_id, task_id) VALUES (?, ?)"
+            )) {
+                for (Integer userId : removed) {
+                    former.setInt(1, userId);
+                    former.setInt(2, taskId);
+                    former.addBatch();
+                }
+                former.executeBatch();
+            }
         }
+
+        if (!added.isEmpty()) {
+            try (PreparedStatement ins = conn.prepareStatement(
+                "INSERT INTO task_assignees (task_id, user_id) VALUES (?, ?)"
+            );
+                 PreparedStatement former = conn.prepareStatement(
+                "DELETE FROM task_former_assignees WHERE user_id = ? AND task_id = ?"
+            )) {
+                for (Integer userId : added) {
+                    ins.setInt(1, taskId);
+                    ins.setInt(2, userId);
+                    ins.addBatch();
+                    former.setInt(1, userId);
+                    former.setInt(2, taskId);
+                    former.addBatch();
+                }
+                ins.executeBatch();
+                former.executeBatch();
+            }
+        }
+
+        current.addAll(wanted);
+        return current;
     }
 
     // ------------------------
     // CRUD methods
     // ------------------------
 
+    // Next value of the change sequence shared by tasks and task_tombstones. It is evaluated
+    // inside the writing statement, under SQLite's write lock, so sequence order is commit
+    // order and a sync client's watermark can never skip past a change that commits later.
+    private static final String NEXT_CHANGE_SEQ = """
+            (SELECT MAX((SELECT IFNULL(MAX(change_seq), 0) FROM tasks),
+                        (SELECT IFNULL(MAX(change_seq), 0) FROM task_tombstones)) + 1)""";
+
+    private static final String INSERT_TASK_SQL = """
+            INSERT INTO tasks
+            (title, description, status, category, priority,
+             created_by_user_id, assignee_id, due_at, pending_review, completed_at, change_seq)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, %s)
+            """.formatted(NEXT_CHANGE_SEQ);
+
     public Task create(Task task) throws SQLException {
-        String sql = """
-                INSERT INTO tasks
-                (title, description, status, category, priority,
-                 created_by_user_id, assignee_id, due_at, pending_review, completed_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
+        try (Connection conn = Database.getConnection()) {
+            int newId;
+            Set<Integer> affected;
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_TASK_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                newId = insertTaskRow(stmt, task);
+
+                // Save assignees in link table
+                affected = saveAssigneesForTask(conn, newId, task.getAssigneeIds());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            // Reload full task from DB
+            Task fresh = reloadAfterWrite(conn, newId);
+            touchAssignees(affected);
+            return fresh;
+        }
+    }
 
-            String statusStr = task.getStatus() != null ? task.getStatus().name() : TaskStatus.TODO.name();
+    /**
+     * Creates several tasks in one transaction: the task rows, their link-table rows (one
+     * batch for all tasks) and, if notificationFor returns one, a notification per task.
+     * Either everything is written or nothing is. Listeners hear about the notifications
+     * only after the commit.
+     */
+    public List<Task> createAll(List<Task> tasks, Function<Task, Notification> notificationFor) throws SQLException {
+        // registered before the rows are committed, so a delete right after the commit still wins
+        long read = COUNTERS.beginRead();
+        try {
+            List<Notification> notifications = new ArrayList<>();
+            List<Task> created;
+
+            try (Connection conn = Database.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    List<Integer> ids = new ArrayList<>(tasks.size());
+                    try (PreparedStatement stmt = conn.prepareStatement(INSERT_TASK_SQL, Statement.RETURN_GENERATED_KEYS);
+                         PreparedStatement link = conn.prepareStatement(
+                             "INSERT INTO task_assignees (task_id, user_id) VALUES (?, ?)")) {
+
+                        for (Task task : tasks) {
+                            int newId = insertTaskRow(stmt, task);
+                            task.setId(newId);
+                            ids.add(newId);
+
+                            for (Integer userId : task.getAssigneeIds()) {
+                                link.setInt(1, newId);
+                                link.setInt(2, userId);
+                                link.addBatch();
+                            }
+                        }
+                        link.executeBatch();
+                    }
 
-            // Determine primary assignee from list + single
-            List<Integer> finalAssignees = new ArrayList<>();
-            if (task.getAssigneeIds() != null) {
-                for (Integer id : task.getAssigneeIds()) {
-                    if (id != null && !finalAssignees.contains(id)) {
-                        finalAssignees.add(id);
+                    if (notificationFor != null) {
+                        for (Task task : tasks) {
+                            Notification n = notificationFor.apply(task);
+                            if (n != null) {
+                                notifications.add(n);
+                            }
+                        }
+                        NotificationDAO.insertBatch(conn, notifications);
                     }
+
+                    created = findByIds(conn, ids);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
                 }
             }
-            if (task.getAssigneeId() != null && task.getAssigneeId() > 0 && !finalAssignees.contains(task.getAssigneeId())) {
-                finalAssignees.add(task.getAssigneeId());
+
+            long seq = WRITE_SEQ.incrementAndGet();
+            for (Task t : created) {
+                cacheIfCurrent(seq, t.getId(), t);
+                COUNTERS.apply(t);
+                touchAssignees(t.getAssigneeIds());
+                fireWritten(t);
+            }
+            for (Notification n : notifications) {
+                NotificationDAO.fireCreated(n);
             }
+            return created;
+        } finally {
+            COUNTERS.endRead(read);
+        }
+    }
+
+    /**
+     * Binds and executes one task INSERT. Normalizes the task's assignee fields the same
+     * way the link table will store them (see normalizeAssignees) and returns the generated id.
+     */
+    private int insertTaskRow(PreparedStatement stmt, Task task) throws SQLException {
+        String statusStr = task.getStatus() != null ? task.getStatus().name() : TaskStatus.TODO.name();
 
-            Integer primaryAssignee = finalAssignees.isEmpty() ? null : finalAssignees.get(0);
+        normalizeAssignees(task);
+        Integer primaryAssignee = task.getAssigneeId();
 
-            stmt.setString(1, task.getTitle());
-            stmt.setString(2, task.getDescription());
-            stmt.setString(3, statusStr);
-            stmt.setString(4, task.getCategory());
-            stmt.setInt(5, task.getPriority());
-            stmt.setInt(6, task.getCreatedByUserId());
+        stmt.setString(1, task.getTitle());
+        stmt.setString(2, task.getDescription());
+        stmt.setString(3, statusStr);
+        stmt.setString(4, task.getCategory());
+        stmt.setInt(5, task.getPriority());
+        stmt.setInt(6, task.getCreatedByUserId());
 
-            if (primaryAssignee == null) {
-                stmt.setNull(7, Types.INTEGER);
-            } else {
-                stmt.setInt(7, primaryAssignee);
+        if (primaryAssignee == null) {
+            stmt.setNull(7, Types.INTEGER);
+        } else {
+            stmt.setInt(7, primaryAssignee);
+        }
+
+        stmt.setString(8, task.getDueAt());
+        stmt.setInt(9, task.isPendingReview() ? 1 : 0);
+        stmt.setString(10, task.getCompletedAt());
+
+        stmt.executeUpdate();
+
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("Failed to get generated task ID");
             }
+            return keys.getInt(1);
+        }
+    }
 
-            stmt.setString(8, task.getDueAt());
-            stmt.setInt(9, task.isPendingReview() ? 1 : 0);
-            stmt.setString(10, task.getCompletedAt());
+    private List<Task> findByIds(Connection conn, List<Integer> ids) throws SQLException {
+        final int chunkSize = 500;
+        List<Task> tasks = new ArrayList<>(ids.size());
 
-            stmt.executeUpdate();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT * FROM tasks WHERE id IN (" + placeholders + ") ORDER BY id";
 
-            int newId;
-            try (ResultSet keys = stmt.getGeneratedKeys()) {
-                if (!keys.next()) {
-                    throw new SQLException("Failed to get generated task ID");
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        tasks.add(mapRow(rs));
+                    }
                 }
-                newId = keys.getInt(1);
             }
+        }
 
-            // Save assignees in link table
-            saveAssigneesForTask(conn, newId, task);
+        loadAssignees(conn, tasks);
+        return tasks;
+    }
 
-            // Reload full task from DB
-            return findById(newId);
+    public Task findById(int id) throws SQLException {
+        Task cached = CACHE.get(id);
+        if (cached != null) {
+            return new Task(cached);
+        }
+
+        long seq = WRITE_SEQ.get();
+        try (Connection conn = Database.getConnection()) {
+            Task task = findById(conn, id);
+            cacheIfCurrent(seq, id, task);
+            return task;
         }
     }
 
-    public Task findById(int id) throws SQLException {
+    private Task findById(Connection conn, int id) throws SQLException {
         String sql = "SELECT * FROM tasks WHERE id = ?";
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
@@ -207,26 +586,19 @@ public class TaskDAO {
 
     public List<Task> findAll() throws SQLException {
         String sql = "SELECT * FROM tasks ORDER BY created_at DESC";
+        String assigneeSql = "SELECT task_id, user_id FROM task_assignees ORDER BY task_id, user_id";
         List<Task> list = new ArrayList<>();
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                Task t = mapRow(rs);
-                List<Integer> assignees = loadAssigneesForTask(conn, t.getId());
-
-                if (assignees.isEmpty() && t.getAssigneeId() != null) {
-                    assignees.add(t.getAssigneeId());
-                }
-
-                t.setAssigneeIds(assignees);
-                if (!assignees.isEmpty()) {
-                    t.setAssigneeId(assignees.get(0));
+        try (Connection conn = Database.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
                 }
+            }
 
-                list.add(t);
+            try (PreparedStatement stmt = conn.prepareStatement(assigneeSql)) {
+                attachAssignees(list, stmt);
             }
         }
 
@@ -244,90 +616,949 @@ public class TaskDAO {
                 WHERE ta.user_id = ?
                 ORDER BY t.created_at DESC
                 """;
+        // every assignee of every task the user is on, in one pass
+        String assigneeSql = """
+                SELECT ta.task_id, ta.user_id
+                FROM task_assignees ta
+                WHERE ta.task_id IN (SELECT task_id FROM task_assignees WHERE user_id = ?)
+                ORDER BY ta.task_id, ta.user_id
+                """;
 
         List<Task> list = new ArrayList<>();
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = Database.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, userId);
 
-            stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(mapRow(rs));
+                    }
+                }
+            }
 
-            try (ResultSet rs = stmt.executeQuery()) {
+            try (PreparedStatement stmt = conn.prepareStatement(assigneeSql)) {
+                stmt.setInt(1, userId);
+                attachAssignees(list, stmt);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Streaming variant of {@link #findAll()}: each task is handed to the handler as it is read,
+     * so the full list is never held in memory. Assignees are preloaded as int arrays.
+     */
+    public void streamAll(RowHandler<Task> handler) throws SQLException, IOException {
+        String sql = "SELECT * FROM tasks ORDER BY created_at DESC";
+        String assigneeSql = "SELECT task_id, user_id FROM task_assignees ORDER BY task_id, user_id";
+
+        try (Connection conn = Database.getConnection()) {
+            Map<Integer, int[]> assignees;
+            try (PreparedStatement stmt = conn.prepareStatement(assigneeSql)) {
+                assignees = loadAssigneeMap(stmt);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     Task t = mapRow(rs);
-                    List<Integer> assignees = loadAssigneesForTask(conn, t.getId());
+                    applyAssignees(t, assignees.get(t.getId()));
+                    handler.handle(t);
+                }
+            }
+        }
+    }
 
-                    if (assignees.isEmpty() && t.getAssigneeId() != null) {
-                        assignees.add(t.getAssigneeId());
+    /**
+     * Streaming variant of {@link #findByAssignee(int)}.
+     */
+    public void streamByAssignee(int userId, RowHandler<Task> handler) throws SQLException, IOException {
+        String sql = """
+                SELECT t.*
+                FROM tasks t
+                JOIN task_assignees ta ON ta.task_id = t.id
+                WHERE ta.user_id = ?
+                ORDER BY t.created_at DESC
+                """;
+        String assigneeSql = """
+                SELECT ta.task_id, ta.user_id
+                FROM task_assignees ta
+                WHERE ta.task_id IN (SELECT task_id FROM task_assignees WHERE user_id = ?)
+                ORDER BY ta.task_id, ta.user_id
+                """;
+
+        try (Connection conn = Database.getConnection()) {
+            Map<Integer, int[]> assignees;
+            try (PreparedStatement stmt = conn.prepareStatement(assigneeSql)) {
+                stmt.setInt(1, userId);
+                assignees = loadAssigneeMap(stmt);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, userId);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Task t = mapRow(rs);
+                        applyAssignees(t, assignees.get(t.getId()));
+                        handler.handle(t);
                     }
+                }
+            }
+        }
+    }
 
-                    t.setAssigneeIds(assignees);
-                    if (!assignees.isEmpty()) {
-                        t.setAssigneeId(assignees.get(0));
+    /**
+     * Filtered, keyset-paginated listing ordered by created_at DESC, id DESC.
+     * All filters are applied in SQL; with no limit every matching row is returned.
+     * Due bounds are calendar days and both inclusive, like findCalendar's range.
+     */
+    public TaskPage findPage(TaskQuery query) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM tasks WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+
+        if (query.getVisibleToUserId() != null) {
+            sql.append(" AND id IN (SELECT task_id FROM task_assignees WHERE user_id = ?)");
+            params.add(query.getVisibleToUserId());
+        }
+        if (query.getAssigneeId() != null) {
+            sql.append(" AND id IN (SELECT task_id FROM task_assignees WHERE user_id = ?)");
+            params.add(query.getAssigneeId());
+        }
+        if (query.getStatus() != null) {
+            sql.append(" AND status = ?");
+            params.add(query.getStatus().name());
+        }
+        if (query.getCategory() != null) {
+            sql.append(" AND category = ?");
+            params.add(query.getCategory());
+        }
+        if (query.getPriority() != null) {
+            sql.append(" AND priority = ?");
+            params.add(query.getPriority());
+        }
+        if (query.getPendingReview() != null) {
+            sql.append(" AND pending_review = ?");
+            params.add(query.getPendingReview() ? 1 : 0);
+        }
+        // on the calendar day (migration 006), so dueTo takes in everything due that day
+        if (query.getDueFrom() != null) {
+            sql.append(" AND due_date >= ?");
+            params.add(query.getDueFrom().toString());
+        }
+        if (query.getDueTo() != null) {
+            sql.append(" AND due_date <= ?");
+            params.add(query.getDueTo().toString());
+        }
+        if (query.getAfterCreatedAt() != null) {
+            sql.append(" AND (created_at < ? OR (created_at = ? AND id < ?))");
+            params.add(query.getAfterCreatedAt());
+            params.add(query.getAfterCreatedAt());
+            params.add(query.getAfterId());
+        }
+
+        sql.append(" ORDER BY created_at DESC, id DESC");
+
+        Integer limit = query.getLimit();
+        if (limit != null) {
+            // one extra row tells us whether another page exists
+            sql.append(" LIMIT ?");
+            params.add(limit + 1);
+        }
+
+        List<Task> list = new ArrayList<>();
+
+        try (Connection conn = Database.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(mapRow(rs));
+                    }
+                }
+            }
+
+            String nextCursor = null;
+            if (limit != null && list.size() > limit) {
+                list.remove(list.size() - 1);
+                Task last = list.get(list.size() - 1);
+                nextCursor = TaskQuery.encodeCursor(last.getCreatedAt(), last.getId());
+            }
+
+            loadAssignees(conn, list);
+            return new TaskPage(list, nextCursor);
+        }
+    }
+
+    /**
+     * Ranked full-text search over task titles/descriptions and comment text (FTS5, BM25).
+     * Every word is matched as a word prefix, and all of them must occur in the task itself or
+     * in one of its comments. BM25 scores of the two indexes aren't comparable, so tasks that
+     * match in their own fields come first, ranked by that score, and tasks that only match in
+     * comments follow, ranked by their best comment. Pages are offset-based, with the next
+     * offset as cursor.
+     */
+    public TaskPage search(String text, Integer visibleToUserId, int limit, int offset) throws SQLException {
+        String match = toMatchQuery(text);
+        if (match.isEmpty()) {
+            return new TaskPage(new ArrayList<>(), null);
+        }
+
+        // title hits weigh more than description hits; source 0 is the task itself, 1 a comment
+        StringBuilder sql = new StringBuilder("""
+                WITH hits AS (
+                    SELECT rowid AS task_id, 0 AS source, bm25(tasks_fts, 10.0, 1.0) AS score
+                    FROM tasks_fts WHERE tasks_fts MATCH ?
+                    UNION ALL
+                    SELECT c.task_id, 1 AS source, bm25(comments_fts) AS score
+                    FROM comments_fts JOIN comments c ON c.id = comments_fts.rowid
+                    WHERE comments_fts MATCH ?
+                )
+                SELECT h.task_id, MIN(h.source) AS source,
+                       IFNULL(MIN(CASE WHEN h.source = 0 THEN h.score END), MIN(h.score)) AS score
+                FROM hits h JOIN tasks t ON t.id = h.task_id
+                """);
+        if (visibleToUserId != null) {
+            sql.append(" WHERE EXISTS (SELECT 1 FROM task_assignees ta WHERE ta.task_id = h.task_id AND ta.user_id = ?)");
+        }
+        sql.append(" GROUP BY h.task_id ORDER BY source, score, h.task_id LIMIT ? OFFSET ?");
+
+        try (Connection conn = Database.getConnection()) {
+            List<Integer> ids = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                int i = 1;
+                stmt.setString(i++, match);
+                stmt.setString(i++, match);
+                if (visibleToUserId != null) {
+                    stmt.setInt(i++, visibleToUserId);
+                }
+                // one extra row tells us whether another page follows
+                stmt.setInt(i++, limit + 1);
+                stmt.setInt(i, offset);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt("task_id"));
                     }
+                }
+            }
+
+            String nextCursor = null;
+            if (ids.size() > limit) {
+                ids.remove(ids.size() - 1);
+                nextCursor = String.valueOf(offset + limit);
+            }
+
+            // findByIds returns id order; put the tasks back in rank order
+            Map<Integer, Task> byId = new HashMap<>();
+            for (Task t : findByIds(conn, ids)) {
+                byId.put(t.getId(), t);
+            }
+            List<Task> ranked = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                Task t = byId.get(id);
+                if (t != null) {
+                    ranked.add(t);
+                }
+            }
+            return new TaskPage(ranked, nextCursor);
+        }
+    }
+
+    /**
+     * Turns free text into an FTS5 query: each word becomes a quoted prefix term, so user
+     * input can never be parsed as FTS5 syntax.
+     */
+    static String toMatchQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(word.replace("\"", "\"\"")).append("\"*");
+        }
+        return match.toString();
+    }
 
-                    list.add(t);
+    /**
+     * Batched IN (...) assignee fetch for an arbitrary set of tasks.
+     */
+    private void loadAssignees(Connection conn, List<Task> tasks) throws SQLException {
+        final int chunkSize = 500;
+
+        for (int from = 0; from < tasks.size(); from += chunkSize) {
+            List<Task> chunk = tasks.subList(from, Math.min(from + chunkSize, tasks.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT task_id, user_id FROM task_assignees WHERE task_id IN (" + placeholders
+                    + ") ORDER BY task_id, user_id";
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i).getId());
                 }
+                attachAssignees(chunk, stmt);
             }
         }
-        return list;
     }
 
-    public Task update(Task task) throws SQLException {
-        String sql = """
-                UPDATE tasks
-                SET title = ?, description = ?, status = ?, category = ?, priority = ?,
-                    due_at = ?, assignee_id = ?, pending_review = ?, completed_at = ?
-                WHERE id = ?
-                """;
+    /**
+     * Tasks on the calendar between from and to (inclusive), bucketed per day. Recurring
+     * categories repeat from their due date the way the dashboard draws them: daily for 14
+     * days, weekly for 3 months, monthly for 6 months. Occurrences the scheduler has already
+     * materialized show up as tasks of their own instead. Each date window is an indexed range
+     * on due_date, so the cost follows the tasks in the range, not the table size.
+     */
+    public TaskCalendar findCalendar(LocalDate from, LocalDate to, Integer visibleToUserId) throws SQLException {
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, title, status, category, priority, assignee_id, created_by_user_id, due_at, due_date,
+                       recur_next
+                FROM tasks t
+                WHERE (due_date BETWEEN ? AND ?
+                       OR (category = ? AND due_date >= ? AND due_date < ?)
+                       OR (category = ? AND due_date >= ? AND due_date < ?)
+                       OR (category = ? AND due_date >= ? AND due_date < ?))
+                """);
+        if (visibleToUserId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM task_assignees ta WHERE ta.task_id = t.id AND ta.user_id = ?)");
+        }
+        sql.append(" ORDER BY due_at, id");
+
+        List<TaskCalendar.Entry> entries = new ArrayList<>();
+        Map<String, List<Integer>> days = new TreeMap<>();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            stmt.setString(i++, from.toString());
+            stmt.setString(i++, to.toString());
+            for (TaskCategory category : new TaskCategory[]{TaskCategory.daily, TaskCategory.weekly, TaskCategory.monthly}) {
+                // series that started before the range but may still be running in it
+                stmt.setString(i++, category.name());
+                stmt.setString(i++, seriesStartBound(category, from).toString());
+                stmt.setString(i++, from.toString());
+            }
+            if (visibleToUserId != null) {
+                stmt.setInt(i, visibleToUserId);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String category = rs.getString("category");
+                    LocalDate base;
+                    LocalDate cursor;
+                    try {
+                        base = LocalDate.parse(rs.getString("due_date"));
+                        String recurNext = rs.getString("recur_next");
+                        cursor = recurNext != null ? LocalDate.parse(recurNext) : null;
+                    } catch (DateTimeParseException e) {
+                        // "2026-13-01" passes the due_date pattern but isn't a date
+                        continue;
+                    }
+
+                    boolean any = false;
+                    for (LocalDate day : occurrences(category, base, cursor, from, to)) {
+                        days.computeIfAbsent(day.toString(), k -> new ArrayList<>()).add(id);
+                        any = true;
+                    }
+                    if (!any) {
+                        continue;
+                    }
+
+                    int assigneeId = rs.getInt("assignee_id");
+                    entries.add(new TaskCalendar.Entry(id, rs.getString("title"), rs.getString("status"), category,
+                        rs.getInt("priority"), rs.wasNull() ? null : assigneeId,
+                        rs.getInt("created_by_user_id"), rs.getString("due_at")));
+                }
+            }
+        }
+
+        return new TaskCalendar(from.toString(), to.toString(), entries, days);
+    }
+
+    /**
+     * Earliest due date whose series can still have an occurrence on or after from.
+     */
+    private static LocalDate seriesStartBound(TaskCategory category, LocalDate from) {
+        switch (category) {
+            case daily:
+                return from.minusDays(13);
+            case weekly:
+                return from.minusMonths(3);
+            case monthly:
+                return from.minusMonths(6);
+            default:
+                return from;
+        }
+    }
+
+    /**
+     * Days in [from, to] a task is drawn on: its due date and, for the root of a recurring
+     * series, the repeats from its cursor (recur_next) on; earlier ones are tasks of their own.
+     */
+    private static List<LocalDate> occurrences(String category, LocalDate base, LocalDate cursor,
+                                               LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        addIfInRange(days, base, from, to);
+        if (cursor == null) {
+            // doesn't recur, or is itself a materialized occurrence
+            return days;
+        }
+
+        LocalDate start = cursor.isAfter(from) ? cursor : from;
+        if (TaskCategory.daily.name().equals(category)) {
+            for (int n = 1; n < 14; n++) {
+                addIfInRange(days, base.plusDays(n), start, to);
+            }
+        } else if (TaskCategory.weekly.name().equals(category)) {
+            LocalDate end = base.plusMonths(3);
+            for (LocalDate d = base.plusWeeks(1); !d.isAfter(end); d = d.plusWeeks(1)) {
+                addIfInRange(days, d, start, to);
+            }
+        } else if (TaskCategory.monthly.name().equals(category)) {
+            for (int n = 1; n <= 6; n++) {
+                addIfInRange(days, base.plusMonths(n), start, to);
+            }
+        }
+        return days;
+    }
+
+    private static void addIfInRange(List<LocalDate> days, LocalDate day, LocalDate from, LocalDate to) {
+        if (!day.isBefore(from) && !day.isAfter(to)) {
+            days.add(day);
+        }
+    }
+
+    // ------------------------
+    // Recurring tasks
+    // ------------------------
+
+    private static final String INSERT_OCCURRENCE_SQL = """
+            INSERT INTO tasks
+            (title, description, status, category, priority,
+             created_by_user_id, assignee_id, due_at, pending_review, completed_at,
+             series_id, occurrence_date, change_seq)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, %s)
+            """.formatted(NEXT_CHANGE_SEQ);
+
+    /**
+     * Materializes the next occurrence of up to limit recurring tasks whose cursor (recur_next)
+     * is on or before horizon. The copies, their assignees, a notification per assignee and the
+     * advanced cursors are written in one transaction, so an occurrence is created exactly once
+     * even if the process stops halfway. Occurrences before catchUpFrom are skipped rather than
+     * created. A series that is several occurrences behind advances one per call; call again
+     * until nothing is returned.
+     *
+     * @return the tasks created
+     */
+    public List<Task> materializeDue(LocalDate horizon, LocalDate catchUpFrom, int limit) throws SQLException {
+        // registered before the rows are committed, so a delete right after the commit still wins
+        long read = COUNTERS.beginRead();
+        try {
+            List<Notification> notifications = new ArrayList<>();
+            List<Task> created;
+
+            try (Connection conn = Database.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    List<Task> roots = new ArrayList<>();
+                    Map<Integer, String> cursors = new HashMap<>();
+                    // the roots' stored assignee_id, which loadAssignees doesn't preserve
+                    Map<Integer, Integer> primaries = new HashMap<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "SELECT * FROM tasks WHERE recur_next IS NOT NULL AND recur_next <= ? ORDER BY recur_next, id LIMIT ?")) {
+                        stmt.setString(1, horizon.toString());
+                        stmt.setInt(2, limit);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                Task root = mapRow(rs);
+                                roots.add(root);
+                                cursors.put(root.getId(), rs.getString("recur_next"));
+                                primaries.put(root.getId(), root.getAssigneeId());
+                            }
+                        }
+                    }
+                    // replaces assigneeId with the lowest linked user id, like every other read
+                    loadAssignees(conn, roots);
+
+                    List<Integer> ids = new ArrayList<>();
+                    try (PreparedStatement advance = conn.prepareStatement(
+                             "UPDATE tasks SET recur_next = ? WHERE id = ? AND recur_next = ?");
+                         PreparedStatement exists = conn.prepareStatement(
+                             "SELECT 1 FROM tasks WHERE series_id = ? AND occurrence_date = ?");
+                         PreparedStatement insert = conn.prepareStatement(INSERT_OCCURRENCE_SQL, Statement.RETURN_GENERATED_KEYS);
+                         PreparedStatement link = conn.prepareStatement(
+                             "INSERT INTO task_assignees (task_id, user_id) VALUES (?, ?)")) {
+
+                        for (Task root : roots) {
+                            String cursor = cursors.get(root.getId());
+                            String category = root.getCategory();
+                            LocalDate base;
+                            LocalDate day;
+                            try {
+                                base = LocalDate.parse(root.getDueAt().substring(0, 10));
+                                day = LocalDate.parse(cursor);
+                            } catch (DateTimeParseException e) {
+                                // "2026-13-01" passes the due_date pattern but can't be stepped from
+                                base = null;
+                                day = null;
+                            }
+                            if (day != null && day.isBefore(catchUpFrom)) {
+                                day = occurrenceOnOrAfter(category, base, catchUpFrom);
+                            }
+                            // occurrences that already have a task, e.g. after the root's due date was moved back
+                            while (day != null && !day.isAfter(horizon) && occurrenceExists(exists, root.getId(), day)) {
+                                day = occurrenceOnOrAfter(category, base, day.plusDays(1));
+                            }
+                            boolean materialize = day != null && !day.isAfter(horizon);
+                            LocalDate next = materialize ? occurrenceOnOrAfter(category, base, day.plusDays(1)) : day;
+
+                            // the cursor moves in this transaction; if someone else already moved it, leave it to them
+                            advance.setString(1, next != null ? next.toString() : null);
+                            advance.setInt(2, root.getId());
+                            advance.setString(3, cursor);
+                            if (advance.executeUpdate() == 0 || !materialize) {
+                                continue;
+                            }
+
+                            Task copy = occurrenceOf(root, primaries.get(root.getId()), day);
+                            insert.setInt(11, root.getId());
+                            insert.setString(12, day.toString());
+                            int newId = insertTaskRow(insert, copy);
+                            ids.add(newId);
+
+                            for (Integer userId : copy.getAssigneeIds()) {
+                                link.setInt(1, newId);
+                                link.setInt(2, userId);
+                                link.addBatch();
+
+                                Notification n = new Notification();
+                                n.setUserId(userId);
+                                n.setTaskId(newId);
+                                n.setType("recurring");
+                                n.setMessage("New occurrence of a recurring task: " + copy.getTitle() + " (due " + day + ")");
+                                notifications.add(n);
+                            }
+                        }
+                        link.executeBatch();
+                    }
+
+                    NotificationDAO.insertBatch(conn, notifications);
+                    created = findByIds(conn, ids);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+            if (!created.isEmpty()) {
+                long seq = WRITE_SEQ.incrementAndGet();
+                for (Task t : created) {
+                    cacheIfCurrent(seq, t.getId(), t);
+                    COUNTERS.apply(t);
+                    touchAssignees(t.getAssigneeIds());
+                    fireWritten(t);
+                }
+            }
+            for (Notification n : notifications) {
+                NotificationDAO.fireCreated(n);
+            }
+            return created;
+        } finally {
+            COUNTERS.endRead(read);
+        }
+    }
+
+    private static boolean occurrenceExists(PreparedStatement exists, int seriesId, LocalDate day) throws SQLException {
+        exists.setInt(1, seriesId);
+        exists.setString(2, day.toString());
+        try (ResultSet rs = exists.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * First occurrence of a series on or after day: base itself, or base plus a whole number of
+     * days, weeks or months (clamped to the month's end, so the 31st stays at month ends).
+     * Null if the category doesn't recur.
+     */
+    static LocalDate occurrenceOnOrAfter(String category, LocalDate base, LocalDate day) {
+        if (!day.isAfter(base)) {
+            return base;
+        }
+        if (TaskCategory.daily.name().equals(category)) {
+            return day;
+        }
+        if (TaskCategory.weekly.name().equals(category)) {
+            return base.plusWeeks((ChronoUnit.DAYS.between(base, day) + 6) / 7);
+        }
+        if (TaskCategory.monthly.name().equals(category)) {
+            long months = ChronoUnit.MONTHS.between(base.withDayOfMonth(1), day.withDayOfMonth(1));
+            LocalDate d = base.plusMonths(months);
+            return d.isBefore(day) ? base.plusMonths(months + 1) : d;
+        }
+        return null;
+    }
+
+    /**
+     * A fresh TODO copy of a recurring task, due on the given day at the root's time of day.
+     * primary is the root's stored assignee_id; the copy gets the same one.
+     */
+    private static Task occurrenceOf(Task root, Integer primary, LocalDate day) {
+        Task copy = new Task();
+        copy.setTitle(root.getTitle());
+        copy.setDescription(root.getDescription());
+        copy.setStatus(TaskStatus.TODO);
+        copy.setCategory(root.getCategory());
+        copy.setPriority(root.getPriority());
+        copy.setCreatedByUserId(root.getCreatedByUserId());
+        // listed first, so insertTaskRow writes it to assignee_id (see normalizeAssignees). Reads
+        // still report the lowest linked id as assigneeId, for the copy just like for the root.
+        List<Integer> assignees = new ArrayList<>();
+        if (primary != null) {
+            assignees.add(primary);
+        }
+        assignees.addAll(root.getAssigneeIds());
+        copy.setAssigneeIds(assignees);
+        copy.setDueAt(day + root.getDueAt().substring(10));
+        copy.setSeriesId(root.getId());
+        return copy;
+    }
+
+    // ------------------------
+    // Due-date reminders
+    // ------------------------
+
+    // reminder kinds, also used as the notification type
+    public static final String DUE_SOON = "due-soon";
+    public static final String OVERDUE = "overdue";
+
+    private static String reminderColumn(String kind) {
+        if (DUE_SOON.equals(kind)) {
+            return "due_soon_sent_for";
+        }
+        if (OVERDUE.equals(kind)) {
+            return "overdue_sent_for";
+        }
+        throw new IllegalArgumentException("Unknown reminder kind: " + kind);
+    }
+
+    /**
+     * Unfinished tasks due after one date and up to another whose reminder of the given kind
+     * hasn't been sent for their current due date, as id -> due_at. An indexed range on due_date.
+     */
+    public Map<Integer, String> findUnreminded(String kind, LocalDate after, LocalDate through) throws SQLException {
+        String sql = "SELECT id, due_at FROM tasks WHERE due_date > ? AND due_date <= ? AND status <> 'DONE' AND "
+                + reminderColumn(kind) + " IS NOT due_at";
+        if (DUE_SOON.equals(kind)) {
+            // once a task has been reported overdue, "due soon" is moot
+            sql += " AND overdue_sent_for IS NOT due_at";
+        }
+        Map<Integer, String> due = new HashMap<>();
 
         try (Connection conn = Database.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            String statusStr = task.getStatus() != null ? task.getStatus().name() : TaskStatus.TODO.name();
+            stmt.setString(1, after.toString());
+            stmt.setString(2, through.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    due.put(rs.getInt("id"), rs.getString("due_at"));
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Sends reminders of one kind for the given tasks (id -> the due_at they were scheduled
+     * for) in one transaction: marks each task as reminded and inserts a notification for each
+     * assignee, plus the creator for overdue. Tasks that were finished, rescheduled or already
+     * reminded in the meantime are skipped, so a reminder goes out at most once per due date.
+     *
+     * @return the number of notifications created
+     */
+    public int sendReminders(String kind, Map<Integer, String> dueAtById) throws SQLException {
+        String column = reminderColumn(kind);
+        String sql = "UPDATE tasks SET " + column + " = due_at WHERE id = ? AND due_at = ? AND status <> 'DONE' AND "
+                + column + " IS NOT due_at";
+        if (dueAtById.isEmpty()) {
+            return 0;
+        }
+        List<Notification> notifications = new ArrayList<>();
+
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (Map.Entry<Integer, String> e : dueAtById.entrySet()) {
+                        stmt.setInt(1, e.getKey());
+                        stmt.setString(2, e.getValue());
+                        if (stmt.executeUpdate() > 0) {
+                            ids.add(e.getKey());
+                        }
+                    }
+                }
 
-            // Determine primary assignee from list + single
-            List<Integer> finalAssignees = new ArrayList<>();
-            if (task.getAssigneeIds() != null) {
-                for (Integer id : task.getAssigneeIds()) {
-                    if (id != null && !finalAssignees.contains(id)) {
-                        finalAssignees.add(id);
+                for (Task t : findByIds(conn, ids)) {
+                    Set<Integer> recipients = new LinkedHashSet<>(t.getAssigneeIds());
+                    if (OVERDUE.equals(kind)) {
+                        recipients.add(t.getCreatedByUserId());
+                    }
+                    for (int userId : recipients) {
+                        Notification n = new Notification();
+                        n.setUserId(userId);
+                        n.setTaskId(t.getId());
+                        n.setType(kind);
+                        n.setMessage(OVERDUE.equals(kind)
+                            ? "Task is overdue: " + t.getTitle() + " (was due " + t.getDueAt() + ")"
+                            : "Task is due soon: " + t.getTitle() + " (due " + t.getDueAt() + ")");
+                        notifications.add(n);
                     }
                 }
+
+                NotificationDAO.insertBatch(conn, notifications);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (task.getAssigneeId() != null && task.getAssigneeId() > 0 && !finalAssignees.contains(task.getAssigneeId())) {
-                finalAssignees.add(task.getAssigneeId());
+        }
+
+        for (Notification n : notifications) {
+            NotificationDAO.fireCreated(n);
+        }
+        return notifications.size();
+    }
+
+    /**
+     * Status, category, priority, review and due-date counts for every task (visibleToUserId
+     * null) or for one assignee's tasks, served from counters kept up to date by the writes.
+     * Only the first call after startup reads the table.
+     *
+     * @param today yyyy-MM-dd that overdue and due-today are measured against
+     */
+    public TaskSummary summarize(Integer visibleToUserId, String today) throws SQLException {
+        if (!COUNTERS.isLoaded()) {
+            loadCounters();
+        }
+        return COUNTERS.summary(visibleToUserId, today);
+    }
+
+    private void loadCounters() throws SQLException {
+        // a task deleted while the table is read must not be counted from the snapshot
+        long read = COUNTERS.beginRead();
+        try {
+            synchronized (COUNTERS_LOAD_LOCK) {
+                if (COUNTERS.isLoaded()) {
+                    return;
+                }
+
+                String sql = "SELECT id, status, category, priority, due_at, pending_review, change_seq FROM tasks";
+                String assigneeSql = "SELECT task_id, user_id FROM task_assignees ORDER BY task_id, user_id";
+
+                try (Connection conn = Database.getConnection()) {
+                    // one read transaction, so tasks and assignees come from the same snapshot;
+                    // writes committed after it carry a higher change_seq and win in apply()
+                    conn.setAutoCommit(false);
+                    try {
+                        Map<Integer, int[]> assignees;
+                        try (PreparedStatement stmt = conn.prepareStatement(assigneeSql)) {
+                            assignees = loadAssigneeMap(stmt);
+                        }
+
+                        try (PreparedStatement stmt = conn.prepareStatement(sql);
+                             ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                int id = rs.getInt("id");
+                                TaskStatus status;
+                                try {
+                                    status = TaskStatus.valueOf(rs.getString("status"));
+                                } catch (IllegalArgumentException | NullPointerException ex) {
+                                    status = TaskStatus.TODO;
+                                }
+                                COUNTERS.apply(new TaskCounters.Entry(id, status, rs.getString("category"),
+                                    rs.getInt("priority"), rs.getString("due_at"), rs.getInt("pending_review") == 1,
+                                    assignees.get(id), rs.getLong("change_seq")));
+                            }
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    } finally {
+                        conn.setAutoCommit(true);
+                    }
+                }
+                COUNTERS.markLoaded();
             }
-            Integer primaryAssignee = finalAssignees.isEmpty() ? null : finalAssignees.get(0);
+        } finally {
+            COUNTERS.endRead(read);
+        }
+    }
 
-            stmt.setString(1, task.getTitle());
-            stmt.setString(2, task.getDescription());
-            stmt.setString(3, statusStr);
-            stmt.setString(4, task.getCategory());
-            stmt.setInt(5, task.getPriority());
-            stmt.setString(6, task.getDueAt());
+    /**
+     * Tasks written or deleted after the given watermark, oldest change first, at most limit
+     * changes per call. With visibleToUserId set (Staff), only the user's tasks are reported,
+     * plus as removed the ones they were unassigned from or that were deleted while theirs
+     * (task_former_assignees, migration 009).
+     */
+    public TaskChanges findChanges(long since, Integer visibleToUserId, int limit) throws SQLException {
+        String sql = visibleToUserId == null ? """
+                SELECT id AS task_id, change_seq, 0 AS deleted FROM tasks WHERE change_seq > ?
+                UNION ALL
+                SELECT task_id, change_seq, 1 AS deleted FROM task_tombstones WHERE change_seq > ?
+                ORDER BY change_seq
+                LIMIT ?
+                """ : """
+                SELECT t.id AS task_id, t.change_seq, 0 AS deleted
+                FROM task_assignees ta JOIN tasks t ON t.id = ta.task_id
+                WHERE ta.user_id = ? AND t.change_seq > ?
+                UNION ALL
+                SELECT t.id AS task_id, t.change_seq, 1 AS deleted
+                FROM task_former_assignees f JOIN tasks t ON t.id = f.task_id
+                WHERE f.user_id = ? AND t.change_seq > ?
+                UNION ALL
+                SELECT tb.task_id, tb.change_seq, 1 AS deleted
+                FROM task_tombstones tb
+                WHERE tb.change_seq > ? AND (tb.legacy = 1 OR tb.task_id IN
+                    (SELECT task_id FROM task_former_assignees WHERE user_id = ?))
+                ORDER BY change_seq
+                LIMIT ?
+                """;
 
-            if (primaryAssignee == null) {
-                stmt.setNull(7, Types.INTEGER);
-            } else {
-                stmt.setInt(7, primaryAssignee);
+        try (Connection conn = Database.getConnection()) {
+            List<Integer> changedIds = new ArrayList<>();
+            List<Integer> removed = new ArrayList<>();
+            long watermark = since;
+            boolean hasMore = false;
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int i = 1;
+                if (visibleToUserId == null) {
+                    stmt.setLong(i++, since);
+                    stmt.setLong(i++, since);
+                } else {
+                    stmt.setInt(i++, visibleToUserId);
+                    stmt.setLong(i++, since);
+                    stmt.setInt(i++, visibleToUserId);
+                    stmt.setLong(i++, since);
+                    stmt.setLong(i++, since);
+                    stmt.setInt(i++, visibleToUserId);
+                }
+                // one extra row tells us whether another page follows
+                stmt.setInt(i, limit + 1);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int count = 0;
+                    while (rs.next()) {
+                        if (++count > limit) {
+                            hasMore = true;
+                            break;
+                        }
+                        if (rs.getInt("deleted") == 1) {
+                            removed.add(rs.getInt("task_id"));
+                        } else {
+                            changedIds.add(rs.getInt("task_id"));
+                        }
+                        watermark = rs.getLong("change_seq");
+                    }
+                }
             }
 
-            stmt.setInt(8, task.isPendingReview() ? 1 : 0);
-            stmt.setString(9, task.getCompletedAt());
-            stmt.setInt(10, task.getId());
+            // A task deleted in between is simply missing here; its tombstone is past the
+            // watermark, so the next call reports it. One unassigned in between was the user's.
+            List<Task> upserts = new ArrayList<>(changedIds.size());
+            for (Task t : findByIds(conn, changedIds)) {
+                if (visibleToUserId == null || t.getAssigneeIds().contains(visibleToUserId)) {
+                    upserts.add(t);
+                } else {
+                    removed.add(t.getId());
+                }
+            }
 
-            stmt.executeUpdate();
+            return new TaskChanges(upserts, removed, watermark, hasMore);
+        }
+    }
 
-            // Save assignees link table
-            saveAssigneesForTask(conn, task.getId(), task);
+    /**
+     * Updates the task row and its assignees in one transaction; only assignees that were
+     * added or removed touch the link table.
+     */
+    public Task update(Task task) throws SQLException {
+        String sql = """
+                UPDATE tasks
+                SET title = ?, description = ?, status = ?, category = ?, priority = ?,
+                    due_at = ?, assignee_id = ?, pending_review = ?, completed_at = ?,
+                    updated_at = CURRENT_TIMESTAMP, change_seq = %s
+                WHERE id = ?
+                """.formatted(NEXT_CHANGE_SEQ);
+
+        try (Connection conn = Database.getConnection()) {
+            Set<Integer> affected;
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                String statusStr = task.getStatus() != null ? task.getStatus().name() : TaskStatus.TODO.name();
+
+                List<Integer> finalAssignees = normalizeAssignees(task);
+                Integer primaryAssignee = task.getAssigneeId();
+
+                stmt.setString(1, task.getTitle());
+                stmt.setString(2, task.getDescription());
+                stmt.setString(3, statusStr);
+                stmt.setString(4, task.getCategory());
+                stmt.setInt(5, task.getPriority());
+                stmt.setString(6, task.getDueAt());
+
+                if (primaryAssignee == null) {
+                    stmt.setNull(7, Types.INTEGER);
+                } else {
+                    stmt.setInt(7, primaryAssignee);
+                }
+
+                stmt.setInt(8, task.isPendingReview() ? 1 : 0);
+                stmt.setString(9, task.getCompletedAt());
+                stmt.setInt(10, task.getId());
+
+                stmt.executeUpdate();
+
+                // Save assignees link table
+                affected = saveAssigneesForTask(conn, task.getId(), finalAssignees);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
 
-            return findById(task.getId());
+            Task fresh = reloadAfterWrite(conn, task.getId());
+            touchAssignees(affected);
+            return fresh;
         }
     }
 
     public Task updateStatus(int id, TaskStatus newStatus, String completedAt) throws SQLException {
-        String sql = "UPDATE tasks SET status = ?, completed_at = ? WHERE id = ?";
+        String sql = "UPDATE tasks SET status = ?, completed_at = ?, updated_at = CURRENT_TIMESTAMP, change_seq = "
+                + NEXT_CHANGE_SEQ + " WHERE id = ?";
 
         try (Connection conn = Database.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -336,19 +1567,55 @@ public class TaskDAO {
             stmt.setString(2, completedAt);
             stmt.setInt(3, id);
             stmt.executeUpdate();
-        }
 
-        return findById(id);
+            Task fresh = reloadAfterWrite(conn, id);
+            if (fresh != null) {
+                touchAssignees(fresh.getAssigneeIds());
+            }
+            return fresh;
+        }
     }
 
+    /**
+     * Deletes the task and leaves a tombstone in the same transaction, so delta-sync clients
+     * see the delete (see findChanges). Its assignees are recorded as former assignees, which
+     * is how Staff syncs tell the deletes of their own tasks apart.
+     */
     public void delete(int id) throws SQLException {
+        String tombstoneSql = "INSERT OR REPLACE INTO task_tombstones (task_id, change_seq) SELECT id, "
+                + NEXT_CHANGE_SEQ + " FROM tasks WHERE id = ?";
+        String formerSql = "INSERT OR IGNORE INTO task_former_assignees (user_id, task_id) "
+                + "SELECT user_id, task_id FROM task_assignees WHERE task_id = ?";
         String sql = "DELETE FROM tasks WHERE id = ?";
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        List<Integer> assignees = Collections.emptyList();
+
+        try (Connection conn = Database.getConnection()) {
+            assignees = loadAssigneesForTask(conn, id);
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement tombstone = conn.prepareStatement(tombstoneSql);
+                 PreparedStatement former = conn.prepareStatement(formerSql);
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                tombstone.setInt(1, id);
+                tombstone.executeUpdate();
+                former.setInt(1, id);
+                former.executeUpdate();
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+                conn.commit();
+                COUNTERS.remove(id);
+                fireDeleted(id);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            WRITE_SEQ.incrementAndGet();
+            CACHE.invalidate(id);
+            touchAssignees(assignees);
         }
     }
 }
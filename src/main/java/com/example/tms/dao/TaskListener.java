@@ -0,0 +1,13 @@
+package com.example.tms.dao;
+
+import com.example.tms.model.Task;
+
+/**
+ * Told about every task write after TaskDAO has committed it. The task passed in is the
+ * committed row and must not be modified.
+ */
+public interface TaskListener {
+    void taskWritten(Task task);
+
+    void taskDeleted(int taskId);
+}
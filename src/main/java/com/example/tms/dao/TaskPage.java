@@ -0,0 +1,24 @@
+package com.example.tms.dao;
+
+import com.example.tms.model.Task;
+
+import java.util.List;
+
+public class TaskPage {
+    private final List<Task> tasks;
+    // null when this is the last page
+    private final String nextCursor;
+
+    public TaskPage(List<Task> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.tms.dao;
+
+import com.example.tms.model.TaskStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Filters and keyset cursor for {@link TaskDAO#findPage(TaskQuery)}.
+ * Null fields are not applied.
+ */
+public class TaskQuery {
+
+    public static final int MAX_LIMIT = 500;
+
+    // Staff visibility: only tasks this user is assigned to
+    private Integer visibleToUserId;
+
+    private TaskStatus status;
+    private String category;
+    private Integer priority;
+    private Integer assigneeId;
+    // calendar days, both inclusive
+    private LocalDate dueFrom;
+    private LocalDate dueTo;
+    private Boolean pendingReview;
+
+    private Integer limit;
+
+    // keyset position: rows strictly after (afterCreatedAt, afterId) in created_at DESC, id DESC order
+    private String afterCreatedAt;
+    private Integer afterId;
+
+    public Integer getVisibleToUserId() {
+        return visibleToUserId;
+    }
+
+    public void setVisibleToUserId(Integer visibleToUserId) {
+        this.visibleToUserId = visibleToUserId;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Integer getAssigneeId() {
+        return assigneeId;
+    }
+
+    public void setAssigneeId(Integer assigneeId) {
+        this.assigneeId = assigneeId;
+    }
+
+    public LocalDate getDueFrom() {
+        return dueFrom;
+    }
+
+    public void setDueFrom(LocalDate dueFrom) {
+        this.dueFrom = dueFrom;
+    }
+
+    public LocalDate getDueTo() {
+        return dueTo;
+    }
+
+    public void setDueTo(LocalDate dueTo) {
+        this.dueTo = dueTo;
+    }
+
+    public Boolean getPendingReview() {
+        return pendingReview;
+    }
+
+    public void setPendingReview(Boolean pendingReview) {
+        this.pendingReview = pendingReview;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        this.limit = limit;
+    }
+
+    public String getAfterCreatedAt() {
+        return afterCreatedAt;
+    }
+
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Positions the query after the row encoded in an opaque cursor from {@link #encodeCursor}.
+     */
+    public void setCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            afterCreatedAt = null;
+            afterId = null;
+            return;
+        }
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        int sep = decoded.lastIndexOf('|');
+        if (sep <= 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            afterId = Integer.parseInt(decoded.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        afterCreatedAt = decoded.substring(0, sep);
+    }
+
+    public static String encodeCursor(String createdAt, int id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.tms.dao;
+
+import java.util.Map;
+
+public class TaskSummary {
+    private final long total;
+    private final Map<String, Long> byStatus;
+    private final Map<String, Long> byCategory;
+    private final Map<Integer, Long> byPriority;
+    private final long pendingReview;
+    private final long dueToday;
+    // due before today and not done
+    private final long overdue;
+
+    public TaskSummary(long total, Map<String, Long> byStatus, Map<String, Long> byCategory,
+                       Map<Integer, Long> byPriority, long pendingReview, long dueToday, long overdue) {
+        this.total = total;
+        this.byStatus = byStatus;
+        this.byCategory = byCategory;
+        this.byPriority = byPriority;
+        this.pendingReview = pendingReview;
+        this.dueToday = dueToday;
+        this.overdue = overdue;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<String, Long> getByStatus() {
+        return byStatus;
+    }
+
+    public Map<String, Long> getByCategory() {
+        return byCategory;
+    }
+
+    public Map<Integer, Long> getByPriority() {
+        return byPriority;
+    }
+
+    public long getPendingReview() {
+        return pendingReview;
+    }
+
+    public long getDueToday() {
+        return dueToday;
+    }
+
+    public long getOverdue() {
+        return overdue;
+    }
+}
@@ -3,12 +3,46 @@ package com.example.tms.dao;
 import com.example.tms.Database;
 import com.example.tms.model.User;
 import com.example.tms.model.UserRole;
+import com.example.tms.util.LruCache;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class UserDAO {
 
+    // Shared by every UserDAO so invalidation is seen everywhere. Role checks on each
+    // request go through findById, so steady-state auth costs no database I/O.
+    private static final LruCache<Integer, User> CACHE = new LruCache<>(
+        Integer.getInteger("tms.cache.users.maxSize", 10_000),
+        Long.getLong("tms.cache.users.ttlSeconds", 300L) * 1000
+    );
+
+    // Bumped after every committed change to the user list (GET /api/users)
+    private static final AtomicLong WRITE_SEQ = new AtomicLong();
+
+    public static LruCache.Stats cacheStats() {
+        return CACHE.stats();
+    }
+
+    public static long version() {
+        return WRITE_SEQ.get();
+    }
+
+    /**
+     * Drops a user from the cache. Call after any write to the users row.
+     */
+    public static void invalidate(int id) {
+        CACHE.invalidate(id);
+    }
+
     public User createUser(String username, String email, String passwordHash, UserRole role) throws SQLException {
         String sql = "INSERT INTO users (username, email, password_hash, role) VALUES (?, ?, ?, ?)";
 
@@ -20,11 +54,12 @@ public class UserDAO {
             stmt.setString(3, passwordHash);
             stmt.setString(4, role.name());
             stmt.executeUpdate();
+            WRITE_SEQ.incrementAndGet();
 
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
                     int id = rs.getInt(1);
-                    return findById(id);
+                    return findById(conn, id);
                 } else {
                     throw new SQLException("Failed to retrieve generated user ID");
                 }
@@ -32,6 +67,25 @@ public class UserDAO {
         }
     }
 
+    /**
+     * Replaces a password hash, but only if it still is expectedHash, so a background
+     * re-hash can't overwrite a password that was changed in the meantime.
+     */
+    public boolean updatePasswordHash(int id, String expectedHash, String newHash) throws SQLException {
+        String sql = "UPDATE users SET password_hash = ? WHERE id = ? AND password_hash = ?";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, newHash);
+            stmt.setInt(2, id);
+            stmt.setString(3, expectedHash);
+            return stmt.executeUpdate() > 0;
+        } finally {
+            invalidate(id);
+        }
+    }
+
     public User findByUsername(String username) throws SQLException {
         String sql = "SELECT * FROM users WHERE username = ?";
 
@@ -49,11 +103,102 @@ public class UserDAO {
         }
     }
 
+    /**
+     * Looks up several users in one query. Names that don't exist are simply absent from
+     * the returned map.
+     */
+    public Map<String, User> findByUsernames(Collection<String> usernames) throws SQLException {
+        Map<String, User> found = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return found;
+        }
+
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(usernames));
+        final int chunkSize = 500;
+
+        try (Connection conn = Database.getConnection()) {
+            for (int from = 0; from < names.size(); from += chunkSize) {
+                List<String> chunk = names.subList(from, Math.min(from + chunkSize, names.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                String sql = "SELECT * FROM users WHERE username IN (" + placeholders + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            User user = mapRow(rs);
+                            found.put(user.getUsername(), user);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks up several users by id, from the cache where possible and in one query for the
+     * rest. Ids that don't exist are simply absent from the returned map.
+     */
+    public Map<Integer, User> findByIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, User> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            User cached = CACHE.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        final int chunkSize = 500;
+
+        try (Connection conn = Database.getConnection()) {
+            for (int from = 0; from < missing.size(); from += chunkSize) {
+                List<Integer> chunk = missing.subList(from, Math.min(from + chunkSize, missing.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            User user = mapRow(rs);
+                            CACHE.put(user.getId(), user);
+                            found.put(user.getId(), user);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
     public User findById(int id) throws SQLException {
+        User cached = CACHE.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (Connection conn = Database.getConnection()) {
+            User user = findById(conn, id);
+            CACHE.put(id, user);
+            return user;
+        }
+    }
+
+    private User findById(Connection conn, int id) throws SQLException {
         String sql = "SELECT * FROM users WHERE id = ?";
 
-        try (Connection conn = Database.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
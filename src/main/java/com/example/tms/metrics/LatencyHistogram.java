@@ -0,0 +1,66 @@
+package com.example.tms.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed 1-2-5 buckets from 0.5 ms to 10 s.
+ *
+ * Recording is a binary search plus two LongAdder increments, so it is cheap enough to sit on
+ * every request. Bucket bounds are fixed so that histograms from different routes (and
+ * different processes) can be aggregated in Prometheus.
+ */
+public class LatencyHistogram {
+
+    // upper bounds in nanoseconds; anything slower lands in the implicit +Inf bucket
+    static final long[] BOUNDS_NANOS = {
+        500_000L, 1_000_000L, 2_000_000L, 5_000_000L,
+        10_000_000L, 20_000_000L, 50_000_000L,
+        100_000_000L, 200_000_000L, 500_000_000L,
+        1_000_000_000L, 2_000_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int lo = 0;
+        int hi = BOUNDS_NANOS.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (nanos <= BOUNDS_NANOS[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        buckets[lo].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Per-bucket (not cumulative) counts; the last entry is the +Inf bucket.
+     */
+    long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.tms.metrics;
+
+import spark.Route;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide metrics, rendered in the Prometheus text format by {@link #scrape()}.
+ *
+ * Routes are instrumented by wrapping them with {@link #timed(Route)}; DAO operations are
+ * recorded through {@link #recordDao(String, long)}. Everything else (pool, caches, queues)
+ * is read on demand at scrape time from suppliers registered with {@link #gauge} and
+ * {@link #counter}, so it costs nothing between scrapes.
+ */
+public final class Metrics {
+
+    private static final ConcurrentHashMap<String, RouteStats> ROUTES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> DAO_OPS = new ConcurrentHashMap<>();
+    private static final Map<String, Family> FAMILIES = new LinkedHashMap<>();
+
+    // bucket bounds as plain decimal seconds ("0.0005", not "5.0E-4")
+    private static final String[] LE_LABELS = new String[LatencyHistogram.BOUNDS_NANOS.length];
+
+    static {
+        for (int i = 0; i < LE_LABELS.length; i++) {
+            LE_LABELS[i] = BigDecimal.valueOf(LatencyHistogram.BOUNDS_NANOS[i], 9).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Wraps a route so that every call is counted by method, matched path and status code,
+     * timed into a histogram and tracked as in flight while it runs.
+     */
+    public static Route timed(Route route) {
+        return (req, res) -> {
+            String method = req.requestMethod();
+            String path = req.matchedPath();
+            RouteStats stats = ROUTES.computeIfAbsent(method + " " + path, k -> new RouteStats(method, path));
+
+            stats.inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            int status = 500;
+            try {
+                Object body = route.handle(req, res);
+                status = res.status();
+                return body;
+            } finally {
+                stats.latency.record(System.nanoTime() - start);
+                stats.inFlight.decrementAndGet();
+                stats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            }
+        };
+    }
+
+    /**
+     * Records one DAO operation, e.g. "TaskDAO.findById".
+     */
+    public static void recordDao(String operation, long nanos) {
+        DAO_OPS.computeIfAbsent(operation, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Registers a value read at scrape time. Labels are written as-is, e.g. {@code cache="users"}.
+     */
+    public static void gauge(String name, String help, String labels, Supplier<Number> value) {
+        register(name, help, "gauge", labels, value);
+    }
+
+    /**
+     * Like {@link #gauge}, for values that only ever grow.
+     */
+    public static void counter(String name, String help, String labels, Supplier<Number> value) {
+        register(name, help, "counter", labels, value);
+    }
+
+    private static synchronized void register(String name, String help, String type, String labels,
+                                              Supplier<Number> value) {
+        FAMILIES.computeIfAbsent(name, k -> new Family(help, type)).samples.add(new Sample(labels, value));
+    }
+
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+
+        out.append("# HELP tms_http_requests_total HTTP requests by route and status.\n");
+        out.append("# TYPE tms_http_requests_total counter\n");
+        for (RouteStats r : ROUTES.values()) {
+            for (Map.Entry<Integer, LongAdder> e : r.statuses.entrySet()) {
+                out.append("tms_http_requests_total{").append(r.labels)
+                   .append(",status=\"").append(e.getKey()).append("\"} ")
+                   .append(e.getValue().sum()).append('\n');
+            }
+        }
+
+        out.append("# HELP tms_http_requests_in_flight HTTP requests currently being handled.\n");
+        out.append("# TYPE tms_http_requests_in_flight gauge\n");
+        for (RouteStats r : ROUTES.values()) {
+            out.append("tms_http_requests_in_flight{").append(r.labels).append("} ")
+               .append(r.inFlight.get()).append('\n');
+        }
+
+        out.append("# HELP tms_http_request_duration_seconds Time spent in the route handler.\n");
+        out.append("# TYPE tms_http_request_duration_seconds histogram\n");
+        for (RouteStats r : ROUTES.values()) {
+            writeHistogram(out, "tms_http_request_duration_seconds", r.labels, r.latency);
+        }
+
+        out.append("# HELP tms_dao_duration_seconds Time a DAO operation held its database connection.\n");
+        out.append("# TYPE tms_dao_duration_seconds histogram\n");
+        for (Map.Entry<String, LatencyHistogram> e : DAO_OPS.entrySet()) {
+            writeHistogram(out, "tms_dao_duration_seconds", "operation=\"" + escape(e.getKey()) + "\"", e.getValue());
+        }
+
+        List<Map.Entry<String, Family>> families;
+        synchronized (Metrics.class) {
+            families = new ArrayList<>(FAMILIES.entrySet());
+        }
+        for (Map.Entry<String, Family> e : families) {
+            Family f = e.getValue();
+            out.append("# HELP ").append(e.getKey()).append(' ').append(f.help).append('\n');
+            out.append("# TYPE ").append(e.getKey()).append(' ').append(f.type).append('\n');
+            for (Sample s : f.samples) {
+                out.append(e.getKey());
+                if (s.labels != null && !s.labels.isEmpty()) {
+                    out.append('{').append(s.labels).append('}');
+                }
+                out.append(' ').append(s.value.get()).append('\n');
+            }
+        }
+
+        return out.toString();
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, LatencyHistogram h) {
+        long[] counts = h.bucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.BOUNDS_NANOS.length; i++) {
+            cumulative += counts[i];
+            out.append(name).append("_bucket{").append(labels)
+               .append(",le=\"").append(LE_LABELS[i]).append("\"} ")
+               .append(cumulative).append('\n');
+        }
+        cumulative += counts[counts.length - 1];
+        out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(h.sumNanos() / 1e9).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class RouteStats {
+        final String labels;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        RouteStats(String method, String path) {
+            this.labels = "method=\"" + escape(method) + "\",route=\"" + escape(path) + "\"";
+        }
+    }
+
+    private static class Family {
+        final String help;
+        final String type;
+        final List<Sample> samples = new ArrayList<>();
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static class Sample {
+        final String labels;
+        final Supplier<Number> value;
+
+        Sample(String labels, Supplier<Number> value) {
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.tms.model;
+
+public class CommentSummary {
+    private int taskId;
+    private int count;
+    private String lastCommentAt;
+
+    public CommentSummary() {}
+
+    public CommentSummary(int taskId, int count, String lastCommentAt) {
+        this.taskId = taskId;
+        this.count = count;
+        this.lastCommentAt = lastCommentAt;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(int taskId) {
+        this.taskId = taskId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public String getLastCommentAt() {
+        return lastCommentAt;
+    }
+
+    public void setLastCommentAt(String lastCommentAt) {
+        this.lastCommentAt = lastCommentAt;
+    }
+}
@@ -11,6 +11,7 @@ public class Task {
     private String category;
     private int priority;
     private String createdAt;
+    private String updatedAt;
     private String dueAt;
     private int createdByUserId;
 
@@ -23,9 +24,37 @@ public class Task {
     private boolean pendingReview;
     private String completedAt;
 
+    // Position in the task change sequence (see GET /api/tasks/changes)
+    private long changeSeq;
+
+    // Recurring task this one was materialized from; null for tasks created directly
+    private Integer seriesId;
+
     public Task() {
     }
 
+    /**
+     * Copy constructor; the assignee list is copied, not shared.
+     */
+    public Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.status = other.status;
+        this.category = other.category;
+        this.priority = other.priority;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.dueAt = other.dueAt;
+        this.createdByUserId = other.createdByUserId;
+        this.assigneeId = other.assigneeId;
+        this.assigneeIds = other.assigneeIds != null ? new ArrayList<>(other.assigneeIds) : new ArrayList<>();
+        this.pendingReview = other.pendingReview;
+        this.completedAt = other.completedAt;
+        this.changeSeq = other.changeSeq;
+        this.seriesId = other.seriesId;
+    }
+
     // ----------- ID -----------
     public int getId() {
         return id;
@@ -89,6 +118,15 @@ public class Task {
         this.createdAt = createdAt;
     }
 
+    // ----------- UPDATED AT -----------
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     // ----------- DUE AT -----------
     public String getDueAt() {
         return dueAt;
@@ -162,4 +200,22 @@ public class Task {
     public void setCompletedAt(String completedAt) {
         this.completedAt = completedAt;
     }
+
+    // ----------- CHANGE SEQ -----------
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    // ----------- SERIES -----------
+    public Integer getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(Integer seriesId) {
+        this.seriesId = seriesId;
+    }
 }
@@ -0,0 +1,138 @@
+package com.example.tms.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe LRU cache with an optional time-to-live per entry.
+ * Entries past their TTL are dropped lazily on access; the least recently used
+ * entry is evicted once maxSize is exceeded.
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param ttlMillis time-to-live per entry, or 0 for no expiry
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> e = map.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - e.storedAt > ttlNanos) {
+            map.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (value == null) {
+            map.remove(key);
+            return;
+        }
+        map.put(key, new Entry<>(value, System.nanoTime()));
+
+        if (map.size() > maxSize) {
+            Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+            while (map.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(map.size(), maxSize, hits, misses, evictions, expirations);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long storedAt;
+
+        Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    public static class Stats {
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final double hitRatio;
+
+        Stats(int size, int maxSize, long hits, long misses, long evictions, long expirations) {
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            long lookups = hits + misses;
+            this.hitRatio = lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public double getHitRatio() {
+            return hitRatio;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- Secondary indexes for the hot read paths
+
+-- CommentDAO.getByTask: WHERE task_id = ? ORDER BY created_at
+CREATE INDEX IF NOT EXISTS idx_comments_task_created ON comments(task_id, created_at);
+
+-- NotificationDAO.findByUserId: WHERE user_id = ? ORDER BY created_at DESC
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created ON notifications(user_id, created_at);
+
+-- TaskDAO.findByAssignee: task_assignees lookups by user
+CREATE INDEX IF NOT EXISTS idx_task_assignees_user ON task_assignees(user_id, task_id);
+
+-- TaskDAO.findAll / findPage: ORDER BY created_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_tasks_created ON tasks(created_at);
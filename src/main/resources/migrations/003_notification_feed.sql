@@ -0,0 +1,8 @@
+-- Notification feed paging and unread counts
+
+-- NotificationDAO.findPageByUserId: WHERE user_id = ? AND id < ? ORDER BY id DESC
+CREATE INDEX IF NOT EXISTS idx_notifications_user_id ON notifications(user_id, id);
+
+-- NotificationDAO.countUnread / markAllRead: only unread rows are indexed, so the count
+-- touches as many entries as the user has unread notifications
+CREATE INDEX IF NOT EXISTS idx_notifications_unread ON notifications(user_id) WHERE is_read = 0;
@@ -0,0 +1,15 @@
+-- Delta sync for GET /api/tasks/changes
+
+-- Every task write stamps the row with the next value of one sequence shared with
+-- task_tombstones (see TaskDAO.NEXT_CHANGE_SEQ). Existing rows start out at their id.
+ALTER TABLE tasks ADD COLUMN change_seq INTEGER NOT NULL DEFAULT 0;
+UPDATE tasks SET change_seq = id;
+CREATE INDEX IF NOT EXISTS idx_tasks_change_seq ON tasks(change_seq);
+
+-- One row per deleted task, so clients holding a copy learn about the delete
+CREATE TABLE IF NOT EXISTS task_tombstones (
+    task_id INTEGER PRIMARY KEY,
+    change_seq INTEGER NOT NULL,
+    deleted_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_change_seq ON task_tombstones(change_seq);
@@ -0,0 +1,13 @@
+-- Calendar range queries (GET /api/tasks/calendar)
+
+-- due_at is free-form text ("2026-10-18 09:00:00", "2026-10-18T09:00", ...). due_date is its
+-- calendar day, or NULL when due_at doesn't start with one. As a generated column it can't
+-- drift from due_at, whichever code path writes the row.
+ALTER TABLE tasks ADD COLUMN due_date TEXT GENERATED ALWAYS AS (
+    CASE WHEN due_at GLOB '[0-9][0-9][0-9][0-9]-[0-9][0-9]-[0-9][0-9]*' THEN substr(due_at, 1, 10) END
+) VIRTUAL;
+
+-- TaskDAO.findCalendar: tasks due inside the range ...
+CREATE INDEX IF NOT EXISTS idx_tasks_due_date ON tasks(due_date);
+-- ... plus recurring series of one category that started before it
+CREATE INDEX IF NOT EXISTS idx_tasks_category_due_date ON tasks(category, due_date);
@@ -0,0 +1,55 @@
+-- Recurring task materializer (RecurringTaskScheduler)
+
+-- A daily, weekly or monthly task is the root of a series; the scheduler copies it into a new
+-- task for each later occurrence. series_id and occurrence_date are set on those copies only,
+-- and the unique index makes a second copy of the same occurrence impossible.
+ALTER TABLE tasks ADD COLUMN series_id INTEGER;
+ALTER TABLE tasks ADD COLUMN occurrence_date TEXT;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_tasks_series_occurrence ON tasks(series_id, occurrence_date)
+    WHERE series_id IS NOT NULL;
+
+-- On a root: date of the next occurrence that has not been materialized yet, NULL when the
+-- task doesn't recur. The scheduler advances it in the same transaction as the insert.
+ALTER TABLE tasks ADD COLUMN recur_next TEXT;
+CREATE INDEX IF NOT EXISTS idx_tasks_recur_next ON tasks(recur_next) WHERE recur_next IS NOT NULL;
+
+-- The first cursor is one period after the due date (monthly clamps to the end of a shorter
+-- month, like LocalDate.plusMonths). Triggers set it for every write path, and reset it when a
+-- root's due date or category changes; series copies never recur themselves.
+CREATE TRIGGER IF NOT EXISTS tasks_recur_ai AFTER INSERT ON tasks
+WHEN new.series_id IS NULL AND new.category IN ('daily', 'weekly', 'monthly') AND new.due_date IS NOT NULL BEGIN
+    UPDATE tasks SET recur_next = CASE new.category
+        WHEN 'daily' THEN date(new.due_date, '+1 day')
+        WHEN 'weekly' THEN date(new.due_date, '+7 days')
+        WHEN 'monthly' THEN CASE
+            WHEN strftime('%d', new.due_date, '+1 month') = strftime('%d', new.due_date)
+            THEN date(new.due_date, '+1 month')
+            ELSE date(new.due_date, 'start of month', '+2 months', '-1 day') END
+        END
+    WHERE id = new.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS tasks_recur_au AFTER UPDATE OF due_at, category ON tasks
+WHEN new.series_id IS NULL AND (old.due_at IS NOT new.due_at OR old.category IS NOT new.category) BEGIN
+    UPDATE tasks SET recur_next = CASE
+        WHEN new.due_date IS NULL THEN NULL
+        WHEN new.category = 'daily' THEN date(new.due_date, '+1 day')
+        WHEN new.category = 'weekly' THEN date(new.due_date, '+7 days')
+        WHEN new.category = 'monthly' THEN CASE
+            WHEN strftime('%d', new.due_date, '+1 month') = strftime('%d', new.due_date)
+            THEN date(new.due_date, '+1 month')
+            ELSE date(new.due_date, 'start of month', '+2 months', '-1 day') END
+        END
+    WHERE id = new.id;
+END;
+
+-- Existing recurring tasks start their series at their next occurrence
+UPDATE tasks SET recur_next = CASE
+    WHEN category = 'daily' THEN date(due_date, '+1 day')
+    WHEN category = 'weekly' THEN date(due_date, '+7 days')
+    ELSE CASE
+        WHEN strftime('%d', due_date, '+1 month') = strftime('%d', due_date)
+        THEN date(due_date, '+1 month')
+        ELSE date(due_date, 'start of month', '+2 months', '-1 day') END
+    END
+WHERE category IN ('daily', 'weekly', 'monthly') AND due_date IS NOT NULL;
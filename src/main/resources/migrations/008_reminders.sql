@@ -0,0 +1,7 @@
+-- Due-date reminders (DueDateReminders)
+
+-- The due_at a "due soon" / "overdue" reminder was last sent for. Moving the due date re-arms
+-- the reminder; setting the column in the same transaction as the notification insert means a
+-- restart never sends one twice. Reminders are found through idx_tasks_due_date (migration 006).
+ALTER TABLE tasks ADD COLUMN due_soon_sent_for TEXT;
+ALTER TABLE tasks ADD COLUMN overdue_sent_for TEXT;
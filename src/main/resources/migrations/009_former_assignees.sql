@@ -0,0 +1,14 @@
+-- Staff delta sync (TaskDAO.findChanges) only reports removals of tasks the user held
+
+-- Users who were assigned to a task and no longer are: unassigned ones, and everyone assigned
+-- when the task was deleted. Re-assigning a user removes their row. No foreign key to tasks,
+-- the rows of a deleted task stay with its tombstone.
+CREATE TABLE IF NOT EXISTS task_former_assignees (
+    user_id INTEGER NOT NULL,
+    task_id INTEGER NOT NULL,
+    PRIMARY KEY (user_id, task_id)
+);
+
+-- Who held a task deleted before this migration is unknown, so those tombstones still go to everyone
+ALTER TABLE task_tombstones ADD COLUMN legacy INTEGER NOT NULL DEFAULT 0;
+UPDATE task_tombstones SET legacy = 1;
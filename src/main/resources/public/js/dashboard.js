@@ -9,6 +9,9 @@ let calendarState = {
   year: null,
   month: null
 };
+// Last calendar range fetched from the server ({ key, data }); cleared when tasks reload
+let calendarCache = null;
+let calendarSeq = 0;
 let commentsModalTaskId = null;
 let commentToDeleteId = null;
 
@@ -26,6 +29,16 @@ let deleteTaskId = null;
 // Comment counts per task (taskId -> number)
 let commentCounts = {};
 
+// Search box: ids of matching tasks, or null when the box is empty
+const SEARCH_LIMIT = 200;
+const SEARCH_DEBOUNCE_MS = 250;
+let searchMatchIds = null;
+let searchSeq = 0;
+let searchTimer = null;
+
+// Notifications shown in the dropdown (newest first)
+const NOTIFICATION_PAGE_SIZE = 50;
+
 // Cached modal refs
 let createTaskModalEl = null;
 let createTaskFormEl = null;
@@ -57,6 +70,7 @@ async function initDashboard() {
     setupDueDateMin();
     await loadTasks();
     await loadNotifications();
+    subscribeNotifications();
   } catch (err) {
     console.error("Failed to initialise dashboard", err);
   }
@@ -75,6 +89,14 @@ function setupHeader() {
   const notifBtn = document.getElementById("notifications-button");
   const notifDropdown = document.getElementById("notifications-dropdown");
 
+  const markAllBtn = document.getElementById("notifications-mark-all");
+  if (markAllBtn) {
+    markAllBtn.addEventListener("click", (e) => {
+      e.stopPropagation();
+      markAllNotificationsRead();
+    });
+  }
+
   if (notifBtn && notifDropdown) {
     notifBtn.addEventListener("click", (e) => {
       e.stopPropagation();
@@ -361,6 +383,12 @@ function setupFilters() {
       });
     }
   );
+
+  document.getElementById("filter-search").addEventListener("input", (e) => {
+    clearTimeout(searchTimer);
+    const query = e.target.value;
+    searchTimer = setTimeout(() => runSearch(query), SEARCH_DEBOUNCE_MS);
+  });
 }
 
 function setupCommentsModal() {
@@ -558,6 +586,7 @@ async function loadTasks() {
     }
 
     allTasks = tasks;
+    calendarCache = null;
     await loadCommentCounts();
     recomputeSummary();
 
@@ -571,9 +600,45 @@ async function loadTasks() {
   }
 }
 
+// Server-side full-text search; narrows the list to the matching tasks
+async function runSearch(query) {
+  const seq = ++searchSeq;
+  const q = query.trim();
+
+  if (!q) {
+    searchMatchIds = null;
+  } else {
+    try {
+      const res = await fetch(
+        `/api/search?q=${encodeURIComponent(q)}&limit=${SEARCH_LIMIT}`
+      );
+      if (!res.ok) {
+        throw new Error("Search failed");
+      }
+      const tasks = await res.json();
+      // a newer keystroke already started another search
+      if (seq !== searchSeq) return;
+      searchMatchIds = new Set(tasks.map((t) => t.id));
+    } catch (err) {
+      console.error("Error searching tasks", err);
+      return;
+    }
+  }
+
+  if (currentView === "list") {
+    renderTaskList();
+  } else {
+    renderCalendar();
+  }
+}
+
 async function loadNotifications() {
   try {
-    const res = await fetch("/api/notifications");
+    // Latest page only; the badge comes from the server-side unread count
+    const [res, countRes] = await Promise.all([
+      fetch(`/api/notifications?limit=${NOTIFICATION_PAGE_SIZE}`),
+      fetch("/api/notifications/unread-count")
+    ]);
     if (!res.ok) {
       if (res.status !== 401) {
         console.error("Failed to load notifications");
@@ -584,8 +649,17 @@ async function loadNotifications() {
     const container = document.getElementById("notifications-list");
     const emptyState = document.getElementById("notifications-empty");
     const badge = document.getElementById("notifications-count");
+    const markAllBtn = document.getElementById("notifications-mark-all");
 
     let unreadCount = 0;
+    if (countRes.ok) {
+      unreadCount = (await countRes.json()).unread;
+    } else {
+      unreadCount = (list || []).filter((n) => !n.read).length;
+    }
+    if (markAllBtn) {
+      markAllBtn.classList.toggle("hidden", unreadCount === 0);
+    }
 
     if (!list || list.length === 0) {
       emptyState.classList.remove("hidden");
@@ -600,8 +674,6 @@ async function loadNotifications() {
     container.innerHTML = "";
 
     list.forEach((n) => {
-      if (!n.read) unreadCount++;
-
       const item = document.createElement("div");
       item.className = "notification-item" + (n.read ? "" : " unread");
       item.innerHTML = `
@@ -638,6 +710,31 @@ async function loadNotifications() {
   }
 }
 
+async function markAllNotificationsRead() {
+  try {
+    const res = await fetch("/api/notifications/read", {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify({ all: true })
+    });
+    if (res.ok) {
+      await loadNotifications();
+    }
+  } catch (err) {
+    console.error("Failed to mark notifications read", err);
+  }
+}
+
+// Server push: refresh the dropdown as soon as a notification is created.
+// EventSource reconnects on its own and the server replays anything missed.
+function subscribeNotifications() {
+  if (!window.EventSource) return;
+  const source = new EventSource("/api/notifications/stream");
+  source.addEventListener("notification", () => {
+    loadNotifications();
+  });
+}
+
 // ================================
 // CREATE / EDIT TASK HANDLER
 // ================================
@@ -719,26 +816,25 @@ async function handleCreateOrEditTaskSubmit(form, modal) {
         return;
       }
 
-      // Extra assignees: cloned tasks
+      // Extra assignees: cloned tasks, created together in one request
       const extraAssignees = assignees.slice(1);
-      for (const username of extraAssignees) {
-        const clonePayload = {
-          title,
-          description,
-          category,
-          priority,
-          dueAt,
-          assigneeUsername: username
-        };
-        const cloneRes = await fetch("/api/tasks", {
+      if (extraAssignees.length) {
+        const cloneRes = await fetch("/api/tasks/bulk", {
           method: "POST",
           headers: { "Content-Type": "application/json" },
-          body: JSON.stringify(clonePayload)
+          body: JSON.stringify({
+            title,
+            description,
+            category,
+            priority,
+            dueAt,
+            assigneeUsernames: extraAssignees
+          })
         });
         if (!cloneRes.ok) {
           console.error(
-            "Failed to create extra task for",
-            username,
+            "Failed to create extra tasks for",
+            extraAssignees,
             await cloneRes.text()
           );
         }
@@ -771,29 +867,27 @@ async function handleCreateOrEditTaskSubmit(form, modal) {
   }
 
   try {
-    for (const username of assignees) {
-      const payload = {
-        title,
-        description,
-        category,
-        priority,
-        dueAt,
-        assigneeUsername: username
-      };
-
-      const res = await fetch("/api/tasks", {
-        method: "POST",
-        headers: { "Content-Type": "application/json" },
-        body: JSON.stringify(payload)
-      });
+    // One request and one transaction for every assignee: all tasks are created or none are
+    const payload = {
+      title,
+      description,
+      category,
+      priority,
+      dueAt,
+      assigneeUsernames: assignees
+    };
+
+    const res = await fetch("/api/tasks/bulk", {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify(payload)
+    });
 
-      if (!res.ok) {
-        const text = await res.text();
-        console.error("Failed to create task", res.status, text);
-        alert(
-          `Failed to create task for ${username}. Check assignee username and permissions.`
-        );
-      }
+    if (!res.ok) {
+      const text = await res.text();
+      console.error("Failed to create tasks", res.status, text);
+      alert("Failed to create tasks. Check assignee usernames and permissions.");
+      return;
     }
 
     form.reset();
@@ -813,54 +907,56 @@ async function handleCreateOrEditTaskSubmit(form, modal) {
 // ================================
 
 function getFilteredTasks() {
-  const statusFilter = document.getElementById("filter-status").value;
-  const categoryFilter = document.getElementById("filter-category").value;
-  const priorityFilter = document.getElementById("filter-priority").value;
-  const mineFilter = document.getElementById("filter-mine").value;
-
-  return allTasks.filter((t) => {
-    if (statusFilter && t.status !== statusFilter) return false;
-    if (categoryFilter && t.category !== categoryFilter) return false;
-    if (priorityFilter && String(t.priority) !== priorityFilter) return false;
-
-    if (mineFilter === "assigned") {
-      if (t.assigneeId !== currentUser.id) return false;
-    } else if (mineFilter === "created") {
-      if (t.createdByUserId !== currentUser.id) return false;
-    }
+  const filters = currentFilters();
+  return allTasks.filter((t) => matchesFilters(t, filters));
+}
 
-    return true;
-  });
+function currentFilters() {
+  return {
+    status: document.getElementById("filter-status").value,
+    category: document.getElementById("filter-category").value,
+    priority: document.getElementById("filter-priority").value,
+    mine: document.getElementById("filter-mine").value
+  };
+}
+
+// Shared by the list and the calendar (which gets compact task entries from the server)
+function matchesFilters(t, filters) {
+  if (searchMatchIds && !searchMatchIds.has(t.id)) return false;
+  if (filters.status && t.status !== filters.status) return false;
+  if (filters.category && t.category !== filters.category) return false;
+  if (filters.priority && String(t.priority) !== filters.priority) return false;
+
+  if (filters.mine === "assigned") {
+    if (t.assigneeId !== currentUser.id) return false;
+  } else if (filters.mine === "created") {
+    if (t.createdByUserId !== currentUser.id) return false;
+  }
+
+  return true;
 }
 
-function recomputeSummary() {
-  const total = allTasks.length;
+// Badge counts come from the server's incrementally maintained counters
+async function recomputeSummary() {
   const today = new Date().toISOString().slice(0, 10);
 
-  let dueToday = 0;
-  let inProgress = 0;
-  let done = 0;
-  let overdue = 0;
-
-  allTasks.forEach((t) => {
-    if (t.status === "TODO" || t.status === "IN_PROGRESS") inProgress++;
-    if (t.status === "DONE") done++;
-
-    if (t.dueAt) {
-      const datePart = String(t.dueAt).slice(0, 10);
-      if (datePart === today) {
-        dueToday++;
-      } else if (datePart < today && t.status !== "DONE") {
-        overdue++;
-      }
+  try {
+    const res = await fetch(`/api/tasks/summary?today=${today}`);
+    if (!res.ok) {
+      throw new Error("Failed to load summary");
     }
-  });
-
-  document.getElementById("summary-total").textContent = total;
-  document.getElementById("summary-due-today").textContent = dueToday;
-  document.getElementById("summary-in-progress").textContent = inProgress;
-  document.getElementById("summary-done").textContent = done;
-  document.getElementById("summary-overdue").textContent = overdue;
+    const summary = await res.json();
+    const byStatus = summary.byStatus || {};
+
+    document.getElementById("summary-total").textContent = summary.total;
+    document.getElementById("summary-due-today").textContent = summary.dueToday;
+    document.getElementById("summary-in-progress").textContent =
+      (byStatus.TODO || 0) + (byStatus.IN_PROGRESS || 0);
+    document.getElementById("summary-done").textContent = byStatus.DONE || 0;
+    document.getElementById("summary-overdue").textContent = summary.overdue;
+  } catch (err) {
+    console.error("Error loading summary", err);
+  }
 }
 
 // ================================
@@ -1102,10 +1198,9 @@ async function handleTaskAction(action, taskId) {
 // CALENDAR VIEW RENDERING
 // ================================
 
-function renderCalendar() {
+async function renderCalendar() {
   const grid = document.getElementById("calendar-grid");
   const label = document.getElementById("calendar-month-label");
-  grid.innerHTML = "";
 
   const year = calendarState.year;
   const month = calendarState.month;
@@ -1120,9 +1215,6 @@ function renderCalendar() {
     year: "numeric"
   });
 
-  const tasks = getFilteredTasks();
-  const tasksByDate = new Map();
-
   const today = new Date();
   const todayStr = today.toISOString().slice(0, 10);
 
@@ -1132,58 +1224,23 @@ function renderCalendar() {
   const calendarEnd = new Date(calendarStart);
   calendarEnd.setDate(calendarEnd.getDate() + 41);
 
-  tasks.forEach((t) => {
-    if (!t.dueAt) return;
-
-    const base = new Date(String(t.dueAt).replace(" ", "T"));
-
-    // Recurring tasks: daily / weekly / monthly
-    if (t.category === "daily" || t.category === "weekly" || t.category === "monthly") {
-      let occurrence = new Date(base);
-      const seriesEnd = new Date(base);
-
-      // Daily: 14-day span from start date (start date + 13 days)
-      if (t.category === "daily") {
-        seriesEnd.setDate(seriesEnd.getDate() + 13);
-      }
-      // Weekly: next 3 months from start date
-      else if (t.category === "weekly") {
-        seriesEnd.setMonth(seriesEnd.getMonth() + 3);
-      }
-      // Monthly: next 6 months from start date
-      else if (t.category === "monthly") {
-        seriesEnd.setMonth(seriesEnd.getMonth() + 6);
-      }
-
-      // Helper to move to the next occurrence
-      const advance = () => {
-        if (t.category === "daily") {
-          occurrence.setDate(occurrence.getDate() + 1);
-        } else if (t.category === "weekly") {
-          occurrence.setDate(occurrence.getDate() + 7);
-        } else {
-          occurrence.setMonth(occurrence.getMonth() + 1);
-        }
-      };
+  // The server expands recurring tasks and buckets everything per day
+  const seq = ++calendarSeq;
+  const data = await loadCalendarRange(toDateKey(calendarStart), toDateKey(calendarEnd));
+  // the user already moved on to another month
+  if (seq !== calendarSeq) return;
+  grid.innerHTML = "";
 
-      // Fast-forward to the first occurrence that might be visible
-      while (occurrence < calendarStart && occurrence <= seriesEnd) {
-        advance();
-      }
+  const filters = currentFilters();
+  const entriesById = new Map();
+  (data ? data.tasks : []).forEach((t) => {
+    if (matchesFilters(t, filters)) entriesById.set(t.id, t);
+  });
 
-      // Add occurrences while they are within the series span AND the current calendar view
-      while (occurrence <= seriesEnd && occurrence <= calendarEnd) {
-        const key = occurrence.toISOString().slice(0, 10);
-        if (!tasksByDate.has(key)) tasksByDate.set(key, []);
-        tasksByDate.get(key).push(t);
-        advance();
-      }
-    } else {
-      // One-time task: just drop it on its due date
-      const key = String(t.dueAt).slice(0, 10);
-      if (!tasksByDate.has(key)) tasksByDate.set(key, []);
-      tasksByDate.get(key).push(t);
-    }
+  const tasksByDate = new Map();
+  Object.entries(data ? data.days : {}).forEach(([key, ids]) => {
+    const dayTasks = ids.map((id) => entriesById.get(id)).filter(Boolean);
+    if (dayTasks.length) tasksByDate.set(key, dayTasks);
   });
 
   const totalCells = 42;
@@ -1251,6 +1308,34 @@ function renderCalendar() {
     grid.appendChild(dayEl);
   }
 }
+
+async function loadCalendarRange(from, to) {
+  const key = `${from}/${to}`;
+  if (calendarCache && calendarCache.key === key) {
+    return calendarCache.data;
+  }
+
+  try {
+    const res = await fetch(`/api/tasks/calendar?from=${from}&to=${to}`);
+    if (!res.ok) {
+      throw new Error("Failed to load calendar");
+    }
+    const data = await res.json();
+    calendarCache = { key, data };
+    return data;
+  } catch (err) {
+    console.error("Error loading calendar", err);
+    return null;
+  }
+}
+
+// yyyy-mm-dd in local time, matching the calendar's cell keys
+function toDateKey(d) {
+  const mm = String(d.getMonth() + 1).padStart(2, "0");
+  const dd = String(d.getDate()).padStart(2, "0");
+  return `${d.getFullYear()}-${mm}-${dd}`;
+}
+
 // ================================
 // COMMENTS MODAL HELPERS
 // ================================
@@ -1347,18 +1432,12 @@ async function loadCommentsForTask(taskId) {
 async function loadCommentCounts() {
   commentCounts = {};
   try {
-    await Promise.all(
-      allTasks.map(async (t) => {
-        try {
-          const res = await fetch(`/api/tasks/${t.id}/comments`);
-          if (!res.ok) return;
-          const comments = await res.json();
-          commentCounts[t.id] = comments.length || 0;
-        } catch (err) {
-          console.error("Failed to load comment count for task", t.id, err);
-        }
-      })
-    );
+    const res = await fetch("/api/tasks/comment-counts");
+    if (!res.ok) return;
+    const summaries = await res.json();
+    summaries.forEach((s) => {
+      commentCounts[s.taskId] = s.count || 0;
+    });
   } catch (err) {
     console.error("Error loading comment counts", err);
   }